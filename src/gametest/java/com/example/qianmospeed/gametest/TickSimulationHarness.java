@@ -0,0 +1,359 @@
+package com.example.qianmospeed.gametest;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.event.BasicEventHandler;
+import com.example.qianmospeed.registry.EnchantmentRegistry;
+import com.example.qianmospeed.util.AllocationProbe;
+import com.mojang.authlib.GameProfile;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraftforge.common.util.FakePlayer;
+import net.minecraftforge.common.util.FakePlayerFactory;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * 无头 tick 模拟：N 个模拟玩家在合成地形上按脚本路线移动，逐 tick 驱动 {@link BasicEventHandler#onPlayerTick}，
+ * 统计模组在玩家 tick 上的端到端开销
+ * <ul>
+ *   <li>每个服务器 tick 花在模组上的总微秒数（平均、p99、最大）</li>
+ *   <li>单个玩家单次 tick 的开销（p50、p99）</li>
+ *   <li>每秒速度修饰器改动次数</li>
+ *   <li>每 tick 分配字节数（{@link AllocationProbe}）</li>
+ * </ul>
+ * 每 tick 开销的 p99 超过预算、或每 tick 平均分配超过阈值时测试失败。运行方式：{@code ./gradlew runGameTestServer}，
+ * 可选 JVM 参数 {@code -Dqianmospeed.tickHarness.players=<玩家数>}（默认 200）、
+ * {@code -Dqianmospeed.tickHarness.budgetMs=<毫秒>}（默认 5）。
+ * 本类与结构模板位于 gametest 源集，只加入开发环境的运行配置，不打进模组 jar。
+ * <p>
+ * 模拟玩家是 {@link FakePlayer}：不在世界的玩家列表中，服务器不会为它们触发玩家 tick 事件，
+ * 批量评估阶段（RoadBatchEvaluator）也不会处理它们，所以道路判定全部落在被测的玩家 tick 路径上，测得的是偏保守的上限。
+ * 移动由脚本直接设置坐标和着地状态，再执行一次实体基础 tick 更新水中状态；这些都不计入测量。
+ */
+@GameTestHolder(QianmoSpeedMod.MODID)
+@PrefixGameTestTemplate(false)
+public class TickSimulationHarness {
+    private static final int PLAYERS = Integer.getInteger("qianmospeed.tickHarness.players", 200);
+    private static final double BUDGET_MS = Double.parseDouble(
+            System.getProperty("qianmospeed.tickHarness.budgetMs", "5"));
+    // 测量期间任一统计窗口（AllocationProbe.WINDOW 个 tick）的平均分配超过该值时判定失败（JVM 不支持线程分配统计时跳过）
+    private static final long ALLOCATION_THRESHOLD = 16 * 1024;
+
+    private static final int WARMUP_TICKS = 100;
+    private static final int MEASURE_TICKS = 600;
+
+    // 模板为 96x4x96 的空结构：y=0 石头，y=1 地表，玩家脚底在 y=2
+    private static final int AREA = 96;
+    private static final double FEET_Y = 2.0;
+    private static final long SEED = 0x71C4L;
+
+    // ==================== 地形 ====================
+
+    /**
+     * 模拟玩家的脚本路线
+     */
+    private enum Route {
+        /** 沿东西向土径往返 */
+        ROAD,
+        /** 沿南北向砂砾路往返，经过十字路口 */
+        CROSSING,
+        /** 在石砖广场内随机游走 */
+        PLAZA,
+        /** 沿土径往返，每 20 tick 跳跃一次 */
+        JUMP,
+        /** 沿石砖台阶小路往返（脚底在半格高度） */
+        SLAB,
+        /** 在水渠中涉水前进（水底是土径） */
+        FLUID,
+        /** 在没有道路的草地上随机游走 */
+        WILDERNESS
+    }
+
+    private static void buildTerrain(GameTestHelper helper) {
+        fill(helper, 0, 0, 0, AREA - 1, AREA - 1, Blocks.STONE);
+        fill(helper, 0, 1, 0, AREA - 1, AREA - 1, Blocks.GRASS_BLOCK);
+
+        // 东西向土径与南北向砂砾路，在 (47, 17) 附近十字相交
+        fill(helper, 4, 1, 16, 91, 18, Blocks.DIRT_PATH);
+        fill(helper, 46, 1, 4, 48, 91, Blocks.GRAVEL);
+        // 石砖广场
+        fill(helper, 56, 1, 56, 87, 87, Blocks.STONE_BRICKS);
+        // 石砖台阶小路，每隔 8 格夹一块完整石砖
+        fill(helper, 4, 1, 40, 40, 41, Blocks.STONE_BRICK_SLAB);
+        for (int x = 4; x <= 40; x += 8) {
+            fill(helper, x, 1, 40, x, 41, Blocks.STONE_BRICKS);
+        }
+        // 水渠：石砖围边，水底是土径
+        fill(helper, 3, 2, 75, 41, 79, Blocks.STONE_BRICKS);
+        fill(helper, 4, 1, 76, 40, 78, Blocks.DIRT_PATH);
+        fill(helper, 4, 2, 76, 40, 78, Blocks.WATER);
+    }
+
+    private static void fill(GameTestHelper helper, int minX, int y, int minZ, int maxX, int maxZ, Block block) {
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                helper.setBlock(x, y, z, block);
+            }
+        }
+    }
+
+    // ==================== 模拟玩家 ====================
+
+    private static final class SimulatedPlayer {
+        final FakePlayer player;
+        final Route route;
+        // 事件对象复用，测量中不产生分配
+        final TickEvent.PlayerTickEvent event;
+        final Random random;
+        double x;
+        double z;
+        double dirX;
+        double dirZ;
+        int tick;
+
+        SimulatedPlayer(FakePlayer player, Route route, Random random) {
+            this.player = player;
+            this.route = route;
+            this.event = new TickEvent.PlayerTickEvent(TickEvent.Phase.END, player);
+            this.random = random;
+        }
+    }
+
+    private static SimulatedPlayer createPlayer(ServerLevel level, int index, Random random) {
+        // UUID 决定检查相位，按种子生成保证每次运行的调度完全相同
+        GameProfile profile = new GameProfile(new UUID(random.nextLong(), random.nextLong()), "qms_sim_" + index);
+        FakePlayer player = FakePlayerFactory.get(level, profile);
+
+        // 四分之三的玩家穿旅途祝福靴子（I~III 级），其余只走常驻加速路径
+        int enchantLevel = index % 4;
+        if (enchantLevel > 0) {
+            ItemStack boots = new ItemStack(Items.LEATHER_BOOTS);
+            boots.enchant(EnchantmentRegistry.TRAVEL_BLESSINGS.get(), enchantLevel);
+            player.setItemSlot(EquipmentSlot.FEET, boots);
+        }
+
+        Route[] routes = Route.values();
+        SimulatedPlayer sim = new SimulatedPlayer(player, routes[index % routes.length], new Random(random.nextLong()));
+        switch (sim.route) {
+            case ROAD, JUMP -> start(sim, 4.5 + random.nextDouble() * 87, sim.route == Route.ROAD ? 17.5 : 16.5, 1, 0);
+            case CROSSING -> start(sim, 47.5, 4.5 + random.nextDouble() * 87, 0, 1);
+            case PLAZA -> start(sim, 56.5 + random.nextDouble() * 31, 56.5 + random.nextDouble() * 31, 1, 0);
+            case SLAB -> start(sim, 4.5 + random.nextDouble() * 36, 40.5 + random.nextDouble(), 1, 0);
+            case FLUID -> start(sim, 4.5 + random.nextDouble() * 36, 77.5, 1, 0);
+            case WILDERNESS -> start(sim, 4.5 + random.nextDouble() * 36, 46.5 + random.nextDouble() * 24, 1, 0);
+        }
+        // 错开跳跃和转向的相位
+        sim.tick = random.nextInt(40);
+        return sim;
+    }
+
+    private static void start(SimulatedPlayer sim, double x, double z, double dirX, double dirZ) {
+        sim.x = x;
+        sim.z = z;
+        sim.dirX = dirX;
+        sim.dirZ = dirZ;
+    }
+
+    /**
+     * 按路线推进一步，设置坐标和着地状态（相对模板原点的坐标）
+     */
+    private static void move(SimulatedPlayer sim, BlockPos origin) {
+        double y = FEET_Y;
+        boolean onGround = true;
+        int tick = sim.tick++;
+
+        switch (sim.route) {
+            case ROAD, CROSSING -> bounce(sim, 0.28, 4.5, 91.5, 4.5, 91.5);
+            case JUMP -> {
+                bounce(sim, 0.28, 4.5, 91.5, 4.5, 91.5);
+                // 起跳初速 0.42，重力近似 0.08/tick²
+                int t = tick % 20;
+                double height = 0.42 * t - 0.04 * t * t;
+                if (height > 0) {
+                    y += height;
+                    onGround = false;
+                }
+            }
+            case SLAB -> {
+                bounce(sim, 0.2, 4.5, 40.5, 40.2, 41.8);
+                // 台阶上脚底在半格高度，夹着的完整石砖上在整格高度
+                int blockX = (int) Math.floor(sim.x);
+                y = (blockX - 4) % 8 == 0 ? FEET_Y : FEET_Y - 0.5;
+            }
+            case FLUID -> bounce(sim, 0.1, 4.5, 40.5, 76.5, 78.5);
+            case PLAZA -> wander(sim, tick, 0.2, 56.5, 87.5, 56.5, 87.5);
+            case WILDERNESS -> wander(sim, tick, 0.2, 4.5, 40.5, 46.5, 70.5);
+        }
+
+        sim.player.setPos(origin.getX() + sim.x, origin.getY() + y, origin.getZ() + sim.z);
+        sim.player.setOnGround(onGround);
+        // 更新水中状态等实体基础状态（不计入测量）
+        sim.player.baseTick();
+        sim.player.tickCount++;
+    }
+
+    private static void bounce(SimulatedPlayer sim, double speed, double minX, double maxX, double minZ, double maxZ) {
+        sim.x += sim.dirX * speed;
+        sim.z += sim.dirZ * speed;
+        if (sim.x < minX || sim.x > maxX) {
+            sim.dirX = -sim.dirX;
+            sim.x = Math.max(minX, Math.min(maxX, sim.x));
+        }
+        if (sim.z < minZ || sim.z > maxZ) {
+            sim.dirZ = -sim.dirZ;
+            sim.z = Math.max(minZ, Math.min(maxZ, sim.z));
+        }
+    }
+
+    private static void wander(SimulatedPlayer sim, int tick, double speed,
+            double minX, double maxX, double minZ, double maxZ) {
+        if (tick % 40 == 0) {
+            double angle = sim.random.nextDouble() * Math.PI * 2;
+            sim.dirX = Math.cos(angle);
+            sim.dirZ = Math.sin(angle);
+        }
+        bounce(sim, speed, minX, maxX, minZ, maxZ);
+    }
+
+    // ==================== 测试 ====================
+
+    @GameTest(template = "tick_harness", timeoutTicks = WARMUP_TICKS + MEASURE_TICKS + 100)
+    public static void playerTickThroughput(GameTestHelper helper) {
+        buildTerrain(helper);
+
+        ServerLevel level = helper.getLevel();
+        BlockPos origin = helper.absolutePos(BlockPos.ZERO);
+        Random random = new Random(SEED);
+        List<SimulatedPlayer> players = new ArrayList<>(PLAYERS);
+        for (int i = 0; i < PLAYERS; i++) {
+            players.add(createPlayer(level, i, random));
+        }
+
+        Measurement measurement = new Measurement(PLAYERS);
+        helper.onEachTick(() -> {
+            if (measurement.finished) return;
+
+            for (SimulatedPlayer sim : players) {
+                move(sim, origin);
+            }
+            measurement.tick(players);
+
+            if (measurement.finished) {
+                for (SimulatedPlayer sim : players) {
+                    BasicEventHandler.onPlayerLogout(new PlayerEvent.PlayerLoggedOutEvent(sim.player));
+                }
+                measurement.report(helper);
+            }
+        });
+    }
+
+    // ==================== 测量 ====================
+
+    private static final class Measurement {
+        final int playerCount;
+        final long[] tickNanos = new long[MEASURE_TICKS];
+        final long[] playerNanos;
+        final AllocationProbe allocationProbe = AllocationProbe.create("tick_harness", ALLOCATION_THRESHOLD);
+        int elapsed = 0;
+        long attributeUpdatesAtStart;
+        boolean finished = false;
+
+        Measurement(int playerCount) {
+            this.playerCount = playerCount;
+            this.playerNanos = new long[playerCount * MEASURE_TICKS];
+        }
+
+        void tick(List<SimulatedPlayer> players) {
+            int sample = elapsed - WARMUP_TICKS;
+            if (sample < 0) {
+                // 预热：建立玩家状态、表面缓存和 JIT
+                for (SimulatedPlayer sim : players) {
+                    BasicEventHandler.onPlayerTick(sim.event);
+                }
+            } else {
+                if (sample == 0) {
+                    attributeUpdatesAtStart = BasicEventHandler.getAttributeUpdateCount();
+                    allocationProbe.reset();
+                }
+                long allocation = allocationProbe.begin();
+                long tickStart = System.nanoTime();
+                int offset = sample * playerCount;
+                for (int i = 0; i < playerCount; i++) {
+                    long start = System.nanoTime();
+                    BasicEventHandler.onPlayerTick(players.get(i).event);
+                    playerNanos[offset + i] = System.nanoTime() - start;
+                }
+                tickNanos[sample] = System.nanoTime() - tickStart;
+                allocationProbe.end(allocation);
+            }
+
+            if (++elapsed >= WARMUP_TICKS + MEASURE_TICKS) {
+                finished = true;
+            }
+        }
+
+        void report(GameTestHelper helper) {
+            long[] ticks = tickNanos.clone();
+            Arrays.sort(ticks);
+            long[] perPlayer = playerNanos.clone();
+            Arrays.sort(perPlayer);
+
+            double meanTickMicros = Arrays.stream(ticks).average().orElse(0) / 1000.0;
+            double p99TickMicros = percentile(ticks, 0.99) / 1000.0;
+            double maxTickMicros = ticks[ticks.length - 1] / 1000.0;
+            double p50PlayerMicros = percentile(perPlayer, 0.50) / 1000.0;
+            double p99PlayerMicros = percentile(perPlayer, 0.99) / 1000.0;
+            long attributeUpdates = BasicEventHandler.getAttributeUpdateCount() - attributeUpdatesAtStart;
+            double attributeUpdatesPerSecond = attributeUpdates / (MEASURE_TICKS / 20.0);
+
+            QianmoSpeedMod.LOGGER.info("【tick 模拟】{} 名玩家, 测量 {} tick（预热 {} tick）",
+                    playerCount, MEASURE_TICKS, WARMUP_TICKS);
+            QianmoSpeedMod.LOGGER.info("【tick 模拟】每 tick 模组耗时: 平均 {} µs, p99 {} µs, 最大 {} µs（预算 {} ms）",
+                    format(meanTickMicros), format(p99TickMicros), format(maxTickMicros), BUDGET_MS);
+            QianmoSpeedMod.LOGGER.info("【tick 模拟】单玩家单次耗时: p50 {} µs, p99 {} µs",
+                    format(p50PlayerMicros), format(p99PlayerMicros));
+            QianmoSpeedMod.LOGGER.info("【tick 模拟】速度修饰器改动: {} 次/秒", format(attributeUpdatesPerSecond));
+            if (allocationProbe.isEnabled()) {
+                QianmoSpeedMod.LOGGER.info("【tick 模拟】每 tick 分配: 最近窗口 {} 字节, 最大窗口 {} 字节",
+                        allocationProbe.getLastAverage(), allocationProbe.getMaxAverage());
+            } else {
+                QianmoSpeedMod.LOGGER.info("【tick 模拟】当前 JVM 不支持线程分配统计，跳过分配测量");
+            }
+
+            if (p99TickMicros > BUDGET_MS * 1000.0) {
+                helper.fail(String.format("%d 名玩家时每 tick 模组耗时 p99 %.1f µs，超过预算 %.1f ms",
+                        playerCount, p99TickMicros, BUDGET_MS));
+            }
+            // 测量期间任一统计窗口超过阈值即失败（只看最后一个窗口会漏掉前面窗口的回归）
+            if (allocationProbe.isEnabled() && allocationProbe.isOverThreshold()) {
+                helper.fail(String.format("%d 名玩家时每 tick 平均分配最多 %d 字节，超过阈值 %d 字节",
+                        playerCount, allocationProbe.getMaxAverage(), ALLOCATION_THRESHOLD));
+            }
+            helper.succeed();
+        }
+
+        private static long percentile(long[] sorted, double fraction) {
+            int index = (int) Math.ceil(fraction * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        private static String format(double value) {
+            return String.format("%.1f", value);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.qianmospeed.bench;
+
+import com.example.qianmospeed.road.BasicRoadDetector;
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基础检测器核心方法基准测试：最小/最大长度直接作为参数传入，积极模式开/关
+ * <p>
+ * 对应 RoadWeaver 规划区块（积极模式）和普通区块（标准模式）两条路径。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BasicRoadDetectorBenchmark {
+
+    @Param
+    public RoadScenario scenario;
+
+    @Param({"2", "4"})
+    public int minDirectionalLength;
+
+    @Param({"5", "16"})
+    public int maxDirectionalLength;
+
+    @Param({"false", "true"})
+    public boolean aggressive;
+
+    private final BasicRoadDetector detector = new BasicRoadDetector();
+    private SyntheticLevel level;
+    private BlockPos[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 配置中的长度同样写入，保证缓存失效范围等派生值与参数一致
+        BenchmarkEnvironment.applyDirectionalConfig(minDirectionalLength, maxDirectionalLength);
+        level = scenario.createLevel(true);
+        probes = scenario.createProbes(level);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public boolean isOnRoad() {
+        BlockPos pos = probes[cursor++ & (RoadScenario.PROBE_COUNT - 1)];
+        return detector.isOnRoad(level, pos, minDirectionalLength, maxDirectionalLength, aggressive);
+    }
+}
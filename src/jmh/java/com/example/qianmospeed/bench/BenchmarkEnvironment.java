@@ -0,0 +1,45 @@
+package com.example.qianmospeed.bench;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.example.qianmospeed.config.SpeedModConfig;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+
+/**
+ * 基准测试环境
+ * <p>
+ * 不启动游戏：只初始化原版注册表（方块、方块状态），并把模组配置装入内存中的配置对象。
+ * 检测器读取的配置值（方向检测长度等）在每个 Trial 开始前按 JMH 参数写入。
+ */
+public final class BenchmarkEnvironment {
+    private static boolean bootstrapped = false;
+    private static CommentedConfig config;
+
+    private BenchmarkEnvironment() {
+    }
+
+    public static synchronized void bootstrap() {
+        if (bootstrapped) return;
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        // 先按默认值补全，再交给 SPEC，之后只修改个别值
+        config = CommentedConfig.inMemory();
+        SpeedModConfig.SPEC.correct(config);
+        SpeedModConfig.SPEC.acceptConfig(config);
+        bootstrapped = true;
+    }
+
+    /**
+     * 写入方向检测参数并刷新配置快照、方块索引和检测器缓存
+     */
+    public static synchronized void applyDirectionalConfig(int minLength, int maxLength) {
+        bootstrap();
+        config.set("client.debugMessages", false);
+        config.set("directional_detection.directionalDetection", true);
+        config.set("directional_detection.minDirectionalLength", minLength);
+        config.set("directional_detection.maxDirectionalLength", maxLength);
+        SpeedModConfig.SPEC.acceptConfig(config);
+        SpeedModConfig.onConfigChanged();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.qianmospeed.bench;
+
+import com.example.qianmospeed.road.RoadDetectionFactory;
+import com.example.qianmospeed.road.RoadRunIndex;
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存预热后的稳态基准测试（服务端侧世界）
+ * <p>
+ * Trial 开始时对所有探测点各检测一次，之后判定缓存和连续长度索引的区段都已建立，测量中不再有未命中：
+ * <ul>
+ *   <li>{@link #factoryHit()} — 工厂检测命中判定缓存</li>
+ *   <li>{@link #verdictCached()} — 玩家/坐骑判定记忆的有效性检查</li>
+ *   <li>{@link #countRun()} — 从探测点沿 +X 统计道路剩余长度（自适应检查间隔使用）</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoadCacheBenchmark {
+    // 与 CheckScheduler 统计剩余长度的上限一致
+    private static final int MAX_MARGIN = 64;
+
+    @Param
+    public RoadScenario scenario;
+
+    @Param({"5", "16"})
+    public int maxDirectionalLength;
+
+    private SyntheticLevel level;
+    private BlockPos[] probes;
+    private long[] probeKeys;
+    private boolean[] verdicts;
+    private RoadRunIndex[] runIndexes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 写入配置时会清空判定缓存和连续长度索引
+        BenchmarkEnvironment.applyDirectionalConfig(2, maxDirectionalLength);
+        level = scenario.createLevel(false);
+        probes = scenario.createProbes(level);
+
+        probeKeys = new long[RoadScenario.PROBE_COUNT];
+        verdicts = new boolean[RoadScenario.PROBE_COUNT];
+        runIndexes = new RoadRunIndex[RoadScenario.PROBE_COUNT];
+        for (int i = 0; i < RoadScenario.PROBE_COUNT; i++) {
+            BlockPos pos = probes[i];
+            probeKeys[i] = pos.asLong();
+            verdicts[i] = RoadDetectionFactory.isOnRoad(level, pos);
+            runIndexes[i] = RoadDetectionFactory.getRunIndex(level, pos);
+            if (runIndexes[i] != null) {
+                runIndexes[i].countRun(level, pos, true, true, MAX_MARGIN);
+            }
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public boolean factoryHit() {
+        BlockPos pos = probes[cursor++ & (RoadScenario.PROBE_COUNT - 1)];
+        return RoadDetectionFactory.isOnRoad(level, pos);
+    }
+
+    @Benchmark
+    public boolean verdictCached() {
+        int i = cursor++ & (RoadScenario.PROBE_COUNT - 1);
+        return RoadDetectionFactory.isVerdictCached(level, probeKeys[i], verdicts[i]);
+    }
+
+    @Benchmark
+    public int countRun() {
+        int i = cursor++ & (RoadScenario.PROBE_COUNT - 1);
+        RoadRunIndex index = runIndexes[i];
+        return index != null ? index.countRun(level, probes[i], true, true, MAX_MARGIN) : 0;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.qianmospeed.bench;
+
+import com.example.qianmospeed.road.BasicRoadDetector;
+import com.example.qianmospeed.road.EnhancedRoadDetectorNoDirection;
+import com.example.qianmospeed.road.HybridRoadDetector;
+import com.example.qianmospeed.road.RoadDetectionFactory;
+import com.example.qianmospeed.road.SmartRoadDetector;
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 道路检测器基准测试：每次操作对一个探测点做一次完整检测
+ * <p>
+ * 参数组合：检测器 x 场景 x 方向检测最小/最大长度 x 世界侧。客户端侧测检测器本身的开销；
+ * 服务端侧检测器按区段索引统计连续长度，工厂的判定在预热后全部命中缓存（缓存本身见 {@link RoadCacheBenchmark}）。
+ * 积极模式只有基础检测器的核心方法接受，见 {@link BasicRoadDetectorBenchmark}。
+ * 每次分配字节数由 gc 分析器给出（build.gradle 中的 jmh 任务默认开启）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoadDetectorBenchmark {
+
+    public enum Detector {
+        BASIC,
+        ENHANCED_NO_DIRECTION,
+        HYBRID,
+        SMART,
+        FACTORY
+    }
+
+    @Param
+    public Detector detector;
+
+    @Param
+    public RoadScenario scenario;
+
+    @Param({"2", "4"})
+    public int minDirectionalLength;
+
+    @Param({"5", "16"})
+    public int maxDirectionalLength;
+
+    @Param({"true", "false"})
+    public boolean clientSide;
+
+    private SyntheticLevel level;
+    private BlockPos[] probes;
+    private RoadDetectionFactory.IRoadDetector instance;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkEnvironment.applyDirectionalConfig(minDirectionalLength, maxDirectionalLength);
+        level = scenario.createLevel(clientSide);
+        probes = scenario.createProbes(level);
+        instance = switch (detector) {
+            case BASIC -> new BasicRoadDetector();
+            case ENHANCED_NO_DIRECTION -> new EnhancedRoadDetectorNoDirection();
+            case HYBRID -> new HybridRoadDetector();
+            case SMART -> new SmartRoadDetector();
+            case FACTORY -> RoadDetectionFactory::isOnRoad;
+        };
+        cursor = 0;
+    }
+
+    @Benchmark
+    public boolean isOnRoad() {
+        BlockPos pos = probes[cursor++ & (RoadScenario.PROBE_COUNT - 1)];
+        return instance.isOnRoad(level, pos);
+    }
+}
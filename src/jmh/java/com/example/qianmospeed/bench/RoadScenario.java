@@ -0,0 +1,119 @@
+package com.example.qianmospeed.bench;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试场景
+ * <p>
+ * 每个场景在 {@link #SIZE} x {@link #SIZE} 的地表上铺设一种典型地形，并在中心附近生成一组固定的探测点
+ * （随机种子固定，每次运行完全相同）。探测点同时覆盖道路上、道路边缘和道路外，
+ * 检测器的命中、提前退出和完整方向扫描三种路径都会被测到。
+ */
+public enum RoadScenario {
+    /** 草地上一条 3 格宽的土径，沿 X 轴贯穿 */
+    STRAIGHT_ROAD {
+        @Override
+        void build(SyntheticLevel level) {
+            level.fill(0, CENTER - 1, SIZE - 1, CENTER + 1, Blocks.DIRT_PATH);
+        }
+    },
+    /** 草地中央 32x32 的石砖广场 */
+    PLAZA {
+        @Override
+        void build(SyntheticLevel level) {
+            level.fill(CENTER - 16, CENTER - 16, CENTER + 15, CENTER + 15, Blocks.STONE_BRICKS);
+        }
+    },
+    /** 两条 3 格宽的石砖路在中心十字相交 */
+    CROSSROADS {
+        @Override
+        void build(SyntheticLevel level) {
+            level.fill(0, CENTER - 1, SIZE - 1, CENTER + 1, Blocks.STONE_BRICKS);
+            level.fill(CENTER - 1, 0, CENTER + 1, SIZE - 1, Blocks.STONE_BRICKS);
+        }
+    },
+    /** 2 格宽的石砖台阶小路，每隔 8 格夹一块完整石砖 */
+    SLAB_PATH {
+        @Override
+        void build(SyntheticLevel level) {
+            level.fill(0, CENTER, SIZE - 1, CENTER + 1, Blocks.STONE_BRICK_SLAB);
+            for (int x = 0; x < SIZE; x += 8) {
+                level.fill(x, CENTER, x, CENTER + 1, Blocks.STONE_BRICKS);
+            }
+        }
+    },
+    /** 没有道路的自然地表：草方块、泥土、砂砾、石头混杂，零星夹着土径 */
+    NATURAL_TERRAIN {
+        private final Block[] palette = {
+                Blocks.GRASS_BLOCK, Blocks.GRASS_BLOCK, Blocks.GRASS_BLOCK, Blocks.DIRT,
+                Blocks.COARSE_DIRT, Blocks.GRAVEL, Blocks.STONE, Blocks.COBBLESTONE
+        };
+
+        @Override
+        void build(SyntheticLevel level) {
+            Random random = new Random(SEED);
+            for (int x = 0; x < SIZE; x++) {
+                for (int z = 0; z < SIZE; z++) {
+                    Block block = random.nextInt(20) == 0 ? Blocks.DIRT_PATH : palette[random.nextInt(palette.length)];
+                    level.set(x, z, block);
+                }
+            }
+        }
+    };
+
+    public static final int SIZE = 96;
+    public static final int CENTER = SIZE / 2;
+    // 探测点数量（2 的幂，基准循环用位掩码取下标）
+    public static final int PROBE_COUNT = 1024;
+    // 探测点离中心的最大水平距离
+    private static final int PROBE_RADIUS = 20;
+    private static final long SEED = 0x51A7EDL;
+
+    abstract void build(SyntheticLevel level);
+
+    /**
+     * 创建铺设好该场景的世界
+     *
+     * @param clientSide 客户端侧世界不经过判定缓存和连续长度索引，见 {@link SyntheticLevel}
+     */
+    public SyntheticLevel createLevel(boolean clientSide) {
+        SyntheticLevel level = new SyntheticLevel(SIZE, Blocks.GRASS_BLOCK, clientSide);
+        build(level);
+        return level;
+    }
+
+    /**
+     * 固定的探测点（玩家脚下方块位置）：一半落在非草方块的格子上（道路本身），一半在探测范围内均匀分布。
+     * 提前创建好，测量中不产生 BlockPos 分配
+     */
+    public BlockPos[] createProbes(SyntheticLevel level) {
+        Random random = new Random(SEED ^ ordinal());
+        List<BlockPos> surfaceCells = new ArrayList<>();
+        for (int x = CENTER - PROBE_RADIUS; x <= CENTER + PROBE_RADIUS; x++) {
+            for (int z = CENTER - PROBE_RADIUS; z <= CENTER + PROBE_RADIUS; z++) {
+                BlockPos pos = new BlockPos(x, SyntheticLevel.SURFACE_Y, z);
+                if (!level.getBlockState(pos).is(Blocks.GRASS_BLOCK)) {
+                    surfaceCells.add(pos);
+                }
+            }
+        }
+
+        BlockPos[] probes = new BlockPos[PROBE_COUNT];
+        for (int i = 0; i < PROBE_COUNT; i++) {
+            if ((i & 1) == 0 && !surfaceCells.isEmpty()) {
+                probes[i] = surfaceCells.get(random.nextInt(surfaceCells.size()));
+            } else {
+                int x = CENTER + random.nextInt(PROBE_RADIUS * 2 + 1) - PROBE_RADIUS;
+                int z = CENTER + random.nextInt(PROBE_RADIUS * 2 + 1) - PROBE_RADIUS;
+                probes[i] = new BlockPos(x, SyntheticLevel.SURFACE_Y, z);
+            }
+        }
+        return probes;
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.qianmospeed.bench;
+
+import com.mojang.serialization.Lifecycle;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.worldgen.BootstapContext;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.sounds.SoundEvent;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.util.profiling.InactiveProfiler;
+import net.minecraft.util.valueproviders.UniformInt;
+import net.minecraft.world.Difficulty;
+import net.minecraft.world.damagesource.DamageType;
+import net.minecraft.world.damagesource.DamageTypes;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.flag.FeatureFlagSet;
+import net.minecraft.world.flag.FeatureFlags;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.BiomeGenerationSettings;
+import net.minecraft.world.level.biome.BiomeSpecialEffects;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.biome.MobSpawnSettings;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkSource;
+import net.minecraft.world.level.chunk.ChunkStatus;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.dimension.BuiltinDimensionTypes;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.entity.LevelEntityGetter;
+import net.minecraft.world.level.gameevent.GameEvent;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraft.world.level.saveddata.maps.MapItemSavedData;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.scores.Scoreboard;
+import net.minecraft.world.ticks.LevelTickAccess;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * 基准测试用的合成世界
+ * <p>
+ * 只有一层地表（{@link #SURFACE_Y}），由 size x size 的方块数组表示，其余位置都是空气；网格之外视为未加载。
+ * <ul>
+ *   <li>客户端侧：检测器走直接读取方块的路径，{@code RoadSurfaceCache} 和 {@code RoadRunIndex} 不参与，
+ *   测得的是检测器本身（无缓存命中）的开销。</li>
+ *   <li>服务端侧：地表同时写入按网格创建的区块（{@link LevelChunk}，只有平原群系），
+ *   判定缓存和连续长度索引的区段都会建立，与游戏内服务器线程上的路径一致。</li>
+ * </ul>
+ * 检测器只用到方块查询、加载判断和区块区段，实体、区块源、计划刻等其余接口不提供。
+ */
+public final class SyntheticLevel extends Level {
+    public static final int SURFACE_Y = 64;
+
+    private static final ResourceKey<Level> DIMENSION =
+            ResourceKey.create(Registries.DIMENSION, new ResourceLocation("qianmospeed", "synthetic"));
+
+    private final int size;
+    private final BlockState[] surface;
+    private final BlockState air = Blocks.AIR.defaultBlockState();
+    // 服务端侧的区块（按 chunkZ * chunkSpan + chunkX 存放）；客户端侧为 null
+    private final int chunkSpan;
+    private final LevelChunk[] chunks;
+
+    public SyntheticLevel(int size, Block fill, boolean clientSide) {
+        super(new ClientLevel.ClientLevelData(Difficulty.NORMAL, false, false), DIMENSION,
+                createRegistryAccess(), Holder.direct(createDimensionType()),
+                () -> InactiveProfiler.INSTANCE, clientSide, false, 0L, 1000000);
+        this.size = size;
+        this.surface = new BlockState[size * size];
+        this.chunkSpan = (size + 15) >> 4;
+        if (clientSide) {
+            this.chunks = null;
+        } else {
+            this.chunks = new LevelChunk[chunkSpan * chunkSpan];
+            for (int chunkZ = 0; chunkZ < chunkSpan; chunkZ++) {
+                for (int chunkX = 0; chunkX < chunkSpan; chunkX++) {
+                    chunks[chunkZ * chunkSpan + chunkX] = new LevelChunk(this, new ChunkPos(chunkX, chunkZ));
+                }
+            }
+        }
+        fill(0, 0, size - 1, size - 1, fill);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // ==================== 网格 ====================
+
+    public void set(int x, int z, BlockState state) {
+        if (!inBounds(x, z)) return;
+        surface[z * size + x] = state;
+        if (chunks != null) {
+            LevelChunk chunk = chunks[(z >> 4) * chunkSpan + (x >> 4)];
+            chunk.getSection(chunk.getSectionIndex(SURFACE_Y))
+                    .setBlockState(x & 15, SURFACE_Y & 15, z & 15, state, false);
+        }
+    }
+
+    public void set(int x, int z, Block block) {
+        set(x, z, block.defaultBlockState());
+    }
+
+    /**
+     * 填充矩形区域（含两端）
+     */
+    public void fill(int minX, int minZ, int maxX, int maxZ, Block block) {
+        BlockState state = block.defaultBlockState();
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                set(x, z, state);
+            }
+        }
+    }
+
+    private boolean inBounds(int x, int z) {
+        return x >= 0 && z >= 0 && x < size && z < size;
+    }
+
+    // ==================== 检测器使用的查询 ====================
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        if (pos.getY() != SURFACE_Y || !inBounds(pos.getX(), pos.getZ())) {
+            return air;
+        }
+        return surface[pos.getZ() * size + pos.getX()];
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return Fluids.EMPTY.defaultFluidState();
+    }
+
+    @Override
+    public boolean isLoaded(BlockPos pos) {
+        return !isOutsideBuildHeight(pos) && inBounds(pos.getX(), pos.getZ());
+    }
+
+    @Override
+    public boolean hasChunk(int chunkX, int chunkZ) {
+        return chunkX >= 0 && chunkZ >= 0 && chunkX << 4 < size && chunkZ << 4 < size;
+    }
+
+    /**
+     * 服务端侧返回网格内的区块（{@code getChunk(x, z)} 等重载最终都走这里）
+     */
+    @Override
+    public ChunkAccess getChunk(int chunkX, int chunkZ, ChunkStatus status, boolean require) {
+        if (chunks != null && hasChunk(chunkX, chunkZ)) {
+            return chunks[chunkZ * chunkSpan + chunkX];
+        }
+        if (require) throw unsupported();
+        return null;
+    }
+
+    @Override
+    public int getSeaLevel() {
+        return 63;
+    }
+
+    @Override
+    public float getShade(Direction direction, boolean shade) {
+        return 1.0F;
+    }
+
+    @Override
+    public FeatureFlagSet enabledFeatures() {
+        return FeatureFlags.DEFAULT_FLAGS;
+    }
+
+    @Override
+    public List<? extends Player> players() {
+        return List.of();
+    }
+
+    @Override
+    public Entity getEntity(int id) {
+        return null;
+    }
+
+    @Override
+    public MapItemSavedData getMapData(String mapName) {
+        return null;
+    }
+
+    @Override
+    public void setMapData(String mapName, MapItemSavedData data) {
+    }
+
+    @Override
+    public int getFreeMapId() {
+        return 0;
+    }
+
+    @Override
+    public String gatherChunkSourceStats() {
+        return "synthetic " + size + "x" + size;
+    }
+
+    // ==================== 不产生效果的世界事件 ====================
+
+    @Override
+    public void sendBlockUpdated(BlockPos pos, BlockState oldState, BlockState newState, int flags) {
+    }
+
+    @Override
+    public void playSeededSound(Player player, double x, double y, double z, Holder<SoundEvent> sound,
+                                SoundSource source, float volume, float pitch, long seed) {
+    }
+
+    @Override
+    public void playSeededSound(Player player, Entity entity, Holder<SoundEvent> sound, SoundSource source,
+                                float volume, float pitch, long seed) {
+    }
+
+    @Override
+    public void destroyBlockProgress(int breakerId, BlockPos pos, int progress) {
+    }
+
+    @Override
+    public void levelEvent(Player player, int type, BlockPos pos, int data) {
+    }
+
+    @Override
+    public void gameEvent(GameEvent event, Vec3 position, GameEvent.Context context) {
+    }
+
+    // ==================== 不支持的接口 ====================
+
+    @Override
+    public Scoreboard getScoreboard() {
+        throw unsupported();
+    }
+
+    @Override
+    public RecipeManager getRecipeManager() {
+        throw unsupported();
+    }
+
+    @Override
+    protected LevelEntityGetter<Entity> getEntities() {
+        throw unsupported();
+    }
+
+    @Override
+    public ChunkSource getChunkSource() {
+        throw unsupported();
+    }
+
+    @Override
+    public LevelTickAccess<Block> getBlockTicks() {
+        throw unsupported();
+    }
+
+    @Override
+    public LevelTickAccess<Fluid> getFluidTicks() {
+        throw unsupported();
+    }
+
+    @Override
+    public Holder<Biome> getUncachedNoiseBiome(int x, int y, int z) {
+        throw unsupported();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("合成世界只提供方块查询和网格内的区块");
+    }
+
+    // ==================== 构造辅助 ====================
+
+    /**
+     * 与主世界相同的高度范围
+     */
+    private static DimensionType createDimensionType() {
+        return new DimensionType(OptionalLong.empty(), true, false, false, true, 1.0, true, false,
+                -64, 384, 384, BlockTags.INFINIBURN_OVERWORLD, BuiltinDimensionTypes.OVERWORLD_EFFECTS, 0.0F,
+                new DimensionType.MonsterSettings(false, true, UniformInt.of(0, 7), 0));
+    }
+
+    /**
+     * Level 构造时会创建 DamageSources，需要伤害类型注册表；区块构造时按群系注册表补齐区段，只登记平原。
+     * 其余数据驱动注册表检测器用不到
+     */
+    private static RegistryAccess createRegistryAccess() {
+        MappedRegistry<DamageType> damageTypes = new MappedRegistry<>(Registries.DAMAGE_TYPE, Lifecycle.stable());
+        DamageTypes.bootstrap(new BootstapContext<>() {
+            @Override
+            public Holder.Reference<DamageType> register(ResourceKey<DamageType> key, DamageType value,
+                                                         Lifecycle lifecycle) {
+                return damageTypes.register(key, value, lifecycle);
+            }
+
+            @Override
+            public <S> HolderGetter<S> lookup(ResourceKey<? extends Registry<? extends S>> registryKey) {
+                throw unsupported();
+            }
+        });
+        damageTypes.freeze();
+
+        MappedRegistry<Biome> biomes = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        biomes.register(Biomes.PLAINS, createPlainsBiome(), Lifecycle.stable());
+        biomes.freeze();
+        return new RegistryAccess.ImmutableRegistryAccess(List.of(damageTypes, biomes)).freeze();
+    }
+
+    private static Biome createPlainsBiome() {
+        BiomeSpecialEffects effects = new BiomeSpecialEffects.Builder()
+                .fogColor(0xC0D8FF)
+                .waterColor(0x3F76E4)
+                .waterFogColor(0x050533)
+                .skyColor(0x78A7FF)
+                .build();
+        return new Biome.BiomeBuilder()
+                .hasPrecipitation(true)
+                .temperature(0.8F)
+                .downfall(0.4F)
+                .specialEffects(effects)
+                .mobSpawnSettings(MobSpawnSettings.EMPTY)
+                .generationSettings(BiomeGenerationSettings.EMPTY)
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.qianmospeed.util;
+
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个 RoadData BLOB 的解码开销（解压 + 流式扫描 + 写入索引构建器），按每条道路的放置数分档
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoadDataBlobBenchmark {
+
+    @Param({"8", "64", "512"})
+    public int placements;
+
+    private final RoadDataBlobScanner scanner = new RoadDataBlobScanner();
+    private byte[] blob;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        RoadWeaverH2Helper.StructureConnection road = new RoadWeaverH2Helper.StructureConnection(
+                new BlockPos(0, 64, 0), new BlockPos(640, 72, 180), "COMPLETED", false);
+        blob = RoadWeaverFixtures.encodeRoadData(road, placements);
+    }
+
+    @Benchmark
+    public int scan() throws IOException {
+        return scanner.scan(blob, (x, y, z) -> {
+        });
+    }
+
+    @Benchmark
+    public RoadSegmentIndex scanIntoIndex() throws IOException {
+        RoadSegmentIndex.Builder builder = RoadSegmentIndex.builder(null);
+        scanner.scan(blob, builder::add);
+        return builder.build();
+    }
+}
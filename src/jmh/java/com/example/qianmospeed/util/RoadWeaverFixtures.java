@@ -0,0 +1,316 @@
+package com.example.qianmospeed.util;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * RoadWeaver 测试数据生成器
+ * <p>
+ * 按 {@link Spec} 生成一个世界目录，布局与 RoadWeaver 写出的文件一致：
+ * <ul>
+ *   <li>{@code dimensions/minecraft/overworld/data/roadweaver_world_data.dat} — 规划区块、规划中心、连接、公路连接</li>
+ *   <li>{@code data/roadweaver/minecraft_overworld/roads.mv.db} — H2 roads 表，每条已完成连接一行 RoadData BLOB</li>
+ * </ul>
+ * 连接几何只由随机种子决定，基准测试可以在不读文件的情况下重新得到同一份布局，用来生成查询点。
+ * <p>
+ * 命令行用法（jmh 源码集的运行时类路径）：{@code RoadWeaverFixtures <世界目录> <连接数> [每条连接的放置数]}，
+ * 也可以通过 {@code gradlew roadWeaverFixture -PfixtureArgs="..."} 运行。
+ */
+public final class RoadWeaverFixtures {
+    public static final ResourceLocation DIMENSION = new ResourceLocation("minecraft", "overworld");
+
+    // 每条连接的平均占地：连接数增加时世界范围随之扩大，保持密度不变
+    private static final int AREA_PER_CONNECTION = 512;
+    private static final int MIN_LENGTH = 200;
+    private static final int MAX_LENGTH = 800;
+    private static final int ROAD_WIDTH = 3;
+    private static final String COMPLETE_MARKER = ".complete";
+
+    /**
+     * 生成参数
+     *
+     * @param connections             连接总数（约 10% 为公路）
+     * @param placementsPerConnection 每条已完成连接写入的道路放置数
+     */
+    public record Spec(int connections, int placementsPerConnection, long seed) {
+        public Spec(int connections, int placementsPerConnection) {
+            this(connections, placementsPerConnection, 0x524F414457L);
+        }
+
+        String directoryName() {
+            return "roadweaver-" + connections + "-" + placementsPerConnection + "-" + Long.toHexString(seed);
+        }
+    }
+
+    private RoadWeaverFixtures() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("用法: RoadWeaverFixtures <世界目录> <连接数> [每条连接的放置数]");
+            System.exit(1);
+        }
+        Path worldRoot = Path.of(args[0]);
+        Spec spec = new Spec(Integer.parseInt(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 8);
+        long start = System.nanoTime();
+        write(worldRoot, spec);
+        System.out.printf("已生成 %d 条连接（每条 %d 个放置）到 %s，耗时 %d ms%n", spec.connections(),
+                spec.placementsPerConnection(), worldRoot.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // ==================== 目录 ====================
+
+    /**
+     * 返回 Spec 对应的世界目录；目录不存在或上次生成未完成时重新生成
+     */
+    public static Path ensure(Path fixtureRoot, Spec spec) throws IOException, SQLException {
+        Path worldRoot = fixtureRoot.resolve(spec.directoryName());
+        if (Files.exists(worldRoot.resolve(COMPLETE_MARKER))) {
+            return worldRoot;
+        }
+        deleteRecursively(worldRoot);
+        write(worldRoot, spec);
+        Files.createFile(worldRoot.resolve(COMPLETE_MARKER));
+        return worldRoot;
+    }
+
+    /**
+     * 基准测试使用的数据目录（可用系统属性 qianmospeed.fixtureDir 覆盖）
+     */
+    public static Path defaultFixtureRoot() {
+        return Path.of(System.getProperty("qianmospeed.fixtureDir", "build/jmh-fixtures"));
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // ==================== 布局 ====================
+
+    /**
+     * 按种子生成连接布局（状态分布：70% 已完成，15% 规划中，10% 生成中，5% 失败）
+     */
+    public static List<RoadWeaverH2Helper.StructureConnection> layout(Spec spec) {
+        Random random = new Random(spec.seed());
+        int half = worldHalfSize(spec);
+        List<RoadWeaverH2Helper.StructureConnection> connections = new ArrayList<>(spec.connections());
+        for (int i = 0; i < spec.connections(); i++) {
+            int fromX = random.nextInt(half * 2) - half;
+            int fromZ = random.nextInt(half * 2) - half;
+            double angle = random.nextDouble() * Math.PI * 2;
+            int length = MIN_LENGTH + random.nextInt(MAX_LENGTH - MIN_LENGTH);
+            BlockPos from = new BlockPos(fromX, 64 + random.nextInt(16), fromZ);
+            BlockPos to = new BlockPos(fromX + (int) (Math.cos(angle) * length), 64 + random.nextInt(16),
+                    fromZ + (int) (Math.sin(angle) * length));
+
+            int roll = random.nextInt(100);
+            String status = roll < 70 ? "COMPLETED" : roll < 85 ? "PLANNED" : roll < 95 ? "GENERATING" : "FAILED";
+            boolean highway = random.nextInt(10) == 0;
+            connections.add(new RoadWeaverH2Helper.StructureConnection(from, to, status, highway));
+        }
+        return connections;
+    }
+
+    /**
+     * 布局覆盖的半边长（方块）
+     */
+    public static int worldHalfSize(Spec spec) {
+        return (int) Math.max(1024, Math.sqrt(spec.connections()) * AREA_PER_CONNECTION / 2);
+    }
+
+    /**
+     * 查询点：四分之一落在道路放置上，四分之一在连接附近，四分之一在规划区块内，其余在世界范围内均匀分布
+     */
+    public static BlockPos[] probes(Spec spec, List<RoadWeaverH2Helper.StructureConnection> layout, int count) {
+        Random random = new Random(spec.seed() ^ 0x5EEDL);
+        int half = worldHalfSize(spec);
+        BlockPos[] probes = new BlockPos[count];
+        for (int i = 0; i < count; i++) {
+            RoadWeaverH2Helper.StructureConnection conn = layout.get(random.nextInt(layout.size()));
+            double t = random.nextDouble();
+            int x = lerp(conn.from.getX(), conn.to.getX(), t);
+            int z = lerp(conn.from.getZ(), conn.to.getZ(), t);
+            switch (i & 3) {
+                case 0 -> {
+                    // 道路放置中心
+                    t = (random.nextInt(spec.placementsPerConnection()) + 0.5) / spec.placementsPerConnection();
+                    x = lerp(conn.from.getX(), conn.to.getX(), t);
+                    z = lerp(conn.from.getZ(), conn.to.getZ(), t);
+                }
+                case 1 -> {
+                    x += random.nextInt(401) - 200;
+                    z += random.nextInt(401) - 200;
+                }
+                case 2 -> {
+                    // 连接线上的区块（规划中的连接即规划区块）
+                }
+                default -> {
+                    x = random.nextInt(half * 2) - half;
+                    z = random.nextInt(half * 2) - half;
+                }
+            }
+            probes[i] = new BlockPos(x, lerp(conn.from.getY(), conn.to.getY(), t), z);
+        }
+        return probes;
+    }
+
+    private static int lerp(int a, int b, double t) {
+        return (int) Math.round(a + (b - a) * t);
+    }
+
+    // ==================== 写出 ====================
+
+    public static void write(Path worldRoot, Spec spec) throws IOException, SQLException {
+        List<RoadWeaverH2Helper.StructureConnection> layout = layout(spec);
+        writeSavedData(worldRoot, layout);
+        writeRoadsDatabase(worldRoot, layout, spec.placementsPerConnection());
+    }
+
+    /**
+     * SavedData：规划中/生成中连接经过的区块记为规划区块，中心取连接上离区块中心最近的点
+     */
+    private static void writeSavedData(Path worldRoot, List<RoadWeaverH2Helper.StructureConnection> layout)
+            throws IOException {
+        CompoundTag root = new CompoundTag();
+        ListTag connections = new ListTag();
+        ListTag highways = new ListTag();
+        List<Long> plannedTiles = new ArrayList<>();
+        CompoundTag centers = new CompoundTag();
+
+        for (RoadWeaverH2Helper.StructureConnection conn : layout) {
+            CompoundTag tag = new CompoundTag();
+            tag.put("from", new IntArrayTag(new int[]{conn.from.getX(), conn.from.getY(), conn.from.getZ()}));
+            tag.put("to", new IntArrayTag(new int[]{conn.to.getX(), conn.to.getY(), conn.to.getZ()}));
+            tag.putString("status", conn.status);
+            (conn.isHighway ? highways : connections).add(tag);
+
+            if ("PLANNED".equals(conn.status) || "GENERATING".equals(conn.status)) {
+                int steps = Math.max(1, (int) (Math.sqrt(conn.from.distSqr(conn.to)) / 16));
+                long lastChunk = Long.MIN_VALUE;
+                for (int s = 0; s <= steps; s++) {
+                    double t = (double) s / steps;
+                    BlockPos center = new BlockPos(lerp(conn.from.getX(), conn.to.getX(), t),
+                            lerp(conn.from.getY(), conn.to.getY(), t), lerp(conn.from.getZ(), conn.to.getZ(), t));
+                    long chunk = ChunkPos.asLong(center.getX() >> 4, center.getZ() >> 4);
+                    if (chunk == lastChunk) continue;
+                    lastChunk = chunk;
+                    plannedTiles.add(chunk);
+                    centers.putLong(Long.toString(chunk), center.asLong());
+                }
+            }
+        }
+
+        root.putLongArray("planned_tiles", plannedTiles);
+        root.put("planned_tile_centers", centers);
+        root.put("connections", connections);
+        root.put("highway_connections", highways);
+        root.put("highway_intersections", new CompoundTag());
+
+        Path file = worldRoot.resolve("dimensions").resolve(DIMENSION.getNamespace()).resolve(DIMENSION.getPath())
+                .resolve("data").resolve("roadweaver_world_data.dat");
+        Files.createDirectories(file.getParent());
+        NbtIo.writeCompressed(root, file.toFile());
+    }
+
+    /**
+     * H2 roads 表：每条已完成连接一行
+     */
+    private static void writeRoadsDatabase(Path worldRoot, List<RoadWeaverH2Helper.StructureConnection> layout,
+            int placementsPerConnection) throws IOException, SQLException {
+        Path dir = worldRoot.resolve("data").resolve("roadweaver")
+                .resolve(DIMENSION.toString().replace(':', '_'));
+        Files.createDirectories(dir);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:" + dir.resolve("roads"), "sa", "")) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS roads (id BIGINT AUTO_INCREMENT PRIMARY KEY, data BLOB)");
+            }
+            try (PreparedStatement insert = conn.prepareStatement("INSERT INTO roads (data) VALUES (?)")) {
+                int pending = 0;
+                for (RoadWeaverH2Helper.StructureConnection road : layout) {
+                    if (!road.isCompleted()) continue;
+                    insert.setBytes(1, encodeRoadData(road, placementsPerConnection));
+                    insert.addBatch();
+                    if (++pending == 256) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    insert.executeBatch();
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    /**
+     * 编码一条 RoadData BLOB（GZIP NBT）：
+     * {road: {width, type, placements: [{middle_pos: [x,y,z], block, positions: [[x,y,z], ...]}, ...]}}
+     * <p>
+     * 每个放置是连接上等距的一个横截面，宽 {@link #ROAD_WIDTH} 格。
+     */
+    public static byte[] encodeRoadData(RoadWeaverH2Helper.StructureConnection road, int placements)
+            throws IOException {
+        double dx = road.to.getX() - road.from.getX();
+        double dz = road.to.getZ() - road.from.getZ();
+        // 横截面方向取主轴的垂直方向
+        boolean alongX = Math.abs(dx) >= Math.abs(dz);
+
+        ListTag placementList = new ListTag();
+        for (int p = 0; p < placements; p++) {
+            double t = (p + 0.5) / placements;
+            int x = lerp(road.from.getX(), road.to.getX(), t);
+            int y = lerp(road.from.getY(), road.to.getY(), t);
+            int z = lerp(road.from.getZ(), road.to.getZ(), t);
+
+            ListTag positions = new ListTag();
+            for (int w = -(ROAD_WIDTH / 2); w <= ROAD_WIDTH / 2; w++) {
+                positions.add(alongX ? new IntArrayTag(new int[]{x, y, z + w}) : new IntArrayTag(new int[]{x + w, y, z}));
+            }
+
+            CompoundTag placement = new CompoundTag();
+            placement.put("middle_pos", new IntArrayTag(new int[]{x, y, z}));
+            placement.putString("block", "minecraft:dirt_path");
+            placement.put("positions", positions);
+            placementList.add(placement);
+        }
+
+        CompoundTag roadTag = new CompoundTag();
+        roadTag.putInt("width", ROAD_WIDTH);
+        roadTag.putString("type", road.isHighway ? "highway" : "road");
+        roadTag.put("placements", placementList);
+
+        CompoundTag root = new CompoundTag();
+        root.put("road", roadTag);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(root, out);
+        return out.toByteArray();
+    }
+}
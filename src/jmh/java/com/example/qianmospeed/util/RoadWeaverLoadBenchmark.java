@@ -0,0 +1,113 @@
+package com.example.qianmospeed.util;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoadWeaver 数据冷加载基准测试
+ * <p>
+ * 每次操作从测试数据目录完整构建一个维度快照（上一快照为空，不共享任何集合）：
+ * <ul>
+ *   <li>{@link #loadSavedData} — 只读 SavedData（规划区块、连接、连接网格索引）</li>
+ *   <li>{@link #loadFromSources} — SavedData + H2 道路段（BLOB 并行解码、道路段索引）</li>
+ *   <li>{@link #loadSnapshotFile} — 读取磁盘快照文件（服务器重启后的首次加载路径）</li>
+ *   <li>{@link #retainedHeapAfterLoad} — 完整加载后快照占用的堆（retainedKiB 计数器，GC 前后差值）</li>
+ * </ul>
+ * 测试数据首次运行时生成到 build/jmh-fixtures，之后复用。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4G"})
+public class RoadWeaverLoadBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int connections;
+
+    @Param({"8"})
+    public int placementsPerConnection;
+
+    private Path worldRoot;
+    private Path snapshotFile;
+    private long savedDataModified;
+    private long segmentModified;
+
+    /**
+     * 快照堆占用（每次迭代一次加载，取该次的值）
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        public long retainedKiB;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RoadWeaverFixtures.Spec spec = new RoadWeaverFixtures.Spec(connections, placementsPerConnection);
+        worldRoot = RoadWeaverFixtures.ensure(RoadWeaverFixtures.defaultFixtureRoot(), spec);
+
+        // 写出与源文件一致的磁盘快照
+        RoadWeaverH2Helper.WorldDataCache loaded = load(true);
+        snapshotFile = RoadIndexSnapshotFile.getFile(worldRoot, RoadWeaverFixtures.DIMENSION);
+        RoadIndexSnapshotFile.write(snapshotFile, loaded);
+        savedDataModified = loaded.savedDataModified;
+        segmentModified = loaded.segmentSourceModified;
+    }
+
+    private RoadWeaverH2Helper.WorldDataCache load(boolean loadH2) {
+        return RoadWeaverH2Helper.loadFromSources(worldRoot, RoadWeaverFixtures.DIMENSION,
+                RoadWeaverH2Helper.WorldDataCache.EMPTY, loadH2);
+    }
+
+    @Benchmark
+    public void loadSavedData(Blackhole blackhole) {
+        blackhole.consume(load(false));
+    }
+
+    @Benchmark
+    public void loadFromSources(Blackhole blackhole) {
+        blackhole.consume(load(true));
+    }
+
+    @Benchmark
+    public void loadSnapshotFile(Blackhole blackhole) {
+        blackhole.consume(RoadIndexSnapshotFile.read(snapshotFile, savedDataModified, segmentModified,
+                RoadWeaverH2Helper.CONNECTION_NEAR_DISTANCE));
+    }
+
+    @Benchmark
+    public void retainedHeapAfterLoad(RetainedHeap heap, Blackhole blackhole) {
+        long before = usedHeapAfterGc();
+        RoadWeaverH2Helper.WorldDataCache cache = load(true);
+        long after = usedHeapAfterGc();
+        heap.retainedKiB = Math.max(0, after - before) / 1024;
+        blackhole.consume(cache);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
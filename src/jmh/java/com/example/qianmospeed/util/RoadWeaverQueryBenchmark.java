@@ -0,0 +1,75 @@
+package com.example.qianmospeed.util;
+
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoadWeaver 快照查询基准测试：每次操作对一个查询点做一次判定
+ * <ul>
+ *   <li>{@link #getRoadContext} — 综合判定（AdvancedRoadHandler.getRoadContext 在快照上的全部工作）</li>
+ *   <li>{@link #connectionQuery} — 连接网格索引（线段距离测试）</li>
+ *   <li>{@link #isOnRoadSegment} — 道路段位置索引</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4G"})
+public class RoadWeaverQueryBenchmark {
+    private static final int PROBE_COUNT = 4096;
+
+    @Param({"1000", "10000", "100000"})
+    public int connections;
+
+    @Param({"8"})
+    public int placementsPerConnection;
+
+    private RoadWeaverH2Helper.WorldDataCache cache;
+    private BlockPos[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RoadWeaverFixtures.Spec spec = new RoadWeaverFixtures.Spec(connections, placementsPerConnection);
+        Path worldRoot = RoadWeaverFixtures.ensure(RoadWeaverFixtures.defaultFixtureRoot(), spec);
+        cache = RoadWeaverH2Helper.loadFromSources(worldRoot, RoadWeaverFixtures.DIMENSION,
+                RoadWeaverH2Helper.WorldDataCache.EMPTY, true);
+        probes = RoadWeaverFixtures.probes(spec, RoadWeaverFixtures.layout(spec), PROBE_COUNT);
+        cursor = 0;
+    }
+
+    private BlockPos nextProbe() {
+        return probes[cursor++ & (PROBE_COUNT - 1)];
+    }
+
+    @Benchmark
+    public int getRoadContext() {
+        return cache.queryRoad(nextProbe());
+    }
+
+    @Benchmark
+    public int connectionQuery() {
+        return cache.connectionIndex.query(nextProbe());
+    }
+
+    @Benchmark
+    public boolean isOnRoadSegment() {
+        return cache.roadSegments.contains(nextProbe());
+    }
+}
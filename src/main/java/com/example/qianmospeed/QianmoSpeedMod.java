@@ -13,6 +13,7 @@ import net.minecraftforge.fml.ModList;
 import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.config.ModConfig;
+import net.minecraftforge.fml.event.config.ModConfigEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import org.apache.logging.log4j.LogManager;
@@ -61,6 +62,9 @@ public class QianmoSpeedMod {
         // 在CommonSetup中初始化，避免过早加载
         modEventBus.addListener(this::commonSetup);
 
+        // 配置加载/热重载后刷新方块列表与检测缓存
+        modEventBus.addListener(this::onConfigEvent);
+
         // 注册Forge事件总线（用于服务器关闭事件）
         MinecraftForge.EVENT_BUS.register(this);
         LOGGER.info("✅ 事件总线注册完成");
@@ -76,6 +80,13 @@ public class QianmoSpeedMod {
         });
     }
 
+    private void onConfigEvent(final ModConfigEvent event) {
+        if (event instanceof ModConfigEvent.Unloading) return;
+        if (event.getConfig().getSpec() == SpeedModConfig.SPEC) {
+            SpeedModConfig.onConfigChanged();
+        }
+    }
+
     private void detectRoadMods() {
         var loadedMods = ModList.get().getMods();
         boolean foundProfessionalMod = false;
@@ -0,0 +1,76 @@
+package com.example.qianmospeed.command;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.util.TimingProfiler;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.List;
+
+/**
+ * /qianmospeed profile 管理员命令（权限等级 2）
+ * <ul>
+ *   <li>{@code /qianmospeed profile} — 打印最近 {@link TimingProfiler#WINDOW_SECONDS} 秒的耗时统计和缓存命中率</li>
+ *   <li>{@code /qianmospeed profile on|off} — 开启/关闭统计（开启时清空旧数据）</li>
+ *   <li>{@code /qianmospeed profile reset} — 清空统计数据</li>
+ * </ul>
+ */
+@Mod.EventBusSubscriber(modid = QianmoSpeedMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class ProfileCommand {
+
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        register(event.getDispatcher());
+    }
+
+    private static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal(QianmoSpeedMod.MODID)
+                .requires(source -> source.hasPermission(2))
+                .then(Commands.literal("profile")
+                        .executes(ProfileCommand::report)
+                        .then(Commands.literal("on").executes(context -> setEnabled(context, true)))
+                        .then(Commands.literal("off").executes(context -> setEnabled(context, false)))
+                        .then(Commands.literal("reset").executes(ProfileCommand::reset))));
+    }
+
+    // ==================== 子命令 ====================
+
+    private static int report(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        if (!TimingProfiler.isEnabled()) {
+            source.sendSuccess(() -> Component.literal(
+                    "§6[阡陌疾旅] §f性能统计未开启，使用 §e/" + QianmoSpeedMod.MODID + " profile on§f 开启"), false);
+            return 0;
+        }
+
+        List<String> lines = TimingProfiler.report();
+        source.sendSuccess(() -> Component.literal(
+                "§6[阡陌疾旅] §f性能统计（最近 " + TimingProfiler.WINDOW_SECONDS + " 秒）"), false);
+        if (lines.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("§7  暂无数据"), false);
+        }
+        for (String line : lines) {
+            source.sendSuccess(() -> Component.literal("§7  " + line), false);
+        }
+        return lines.size();
+    }
+
+    private static int setEnabled(CommandContext<CommandSourceStack> context, boolean enabled) {
+        TimingProfiler.setEnabled(enabled);
+        context.getSource().sendSuccess(() -> Component.literal(
+                enabled ? "§6[阡陌疾旅] §f性能统计已开启" : "§6[阡陌疾旅] §f性能统计已关闭"), true);
+        return 1;
+    }
+
+    private static int reset(CommandContext<CommandSourceStack> context) {
+        TimingProfiler.reset();
+        context.getSource().sendSuccess(() -> Component.literal("§6[阡陌疾旅] §f性能统计已清空"), true);
+        return 1;
+    }
+}
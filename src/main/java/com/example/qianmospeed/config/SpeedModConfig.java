@@ -1,8 +1,10 @@
 package com.example.qianmospeed.config;
 
 import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.road.RoadBlockIndex;
 import net.minecraftforge.common.ForgeConfigSpec;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
 
 import java.util.Arrays;
 import java.util.List;
@@ -16,9 +18,19 @@ public class SpeedModConfig {
     public static final ForgeConfigSpec.BooleanValue DEBUG_MESSAGES;
     public static final ForgeConfigSpec.BooleanValue LOGIN_MESSAGES;
     public static final ForgeConfigSpec.BooleanValue SPEED_EFFECT_MESSAGES;
+    public static final ForgeConfigSpec.IntValue DEBUG_SAMPLE_INTERVAL;
+    public static final ForgeConfigSpec.IntValue DEBUG_MAX_LINES_PER_SECOND;
+
+    // 调试开关快照：热路径只读这个字段，配置加载/重载时刷新
+    private static volatile boolean debugEnabled = false;
 
     // 游戏性配置
     public static final ForgeConfigSpec.IntValue CHECK_INTERVAL;
+    public static final ForgeConfigSpec.IntValue MAX_EVALUATIONS_PER_TICK;
+    public static final ForgeConfigSpec.BooleanValue ADAPTIVE_CHECK_INTERVAL;
+    public static final ForgeConfigSpec.IntValue MIN_CHECK_INTERVAL;
+    public static final ForgeConfigSpec.IntValue MAX_CHECK_INTERVAL;
+    public static final ForgeConfigSpec.BooleanValue VEHICLE_ROAD_SPEED;
 
     // 速度加成配置
     public static final ForgeConfigSpec.DoubleValue SPEED_MULTIPLIER_1;
@@ -55,10 +67,11 @@ public class SpeedModConfig {
     public static final ForgeConfigSpec.IntValue MAX_DIRECTIONAL_LENGTH;
 
     // ========== 道路方块配置 ==========
-    private static List<String> basicRoadBlockIds = new java.util.ArrayList<>();
+    // 不可变列表快照：配置重载（配置监视线程）时整体替换，读取方（服务器线程重建分类索引）不会看到清空到一半的列表
+    private static volatile List<String> basicRoadBlockIds = List.of();
     public static final ForgeConfigSpec.ConfigValue<List<? extends String>> BASIC_ROAD_BLOCKS;
 
-    private static List<String> advancedRoadBlockIds = new java.util.ArrayList<>();
+    private static volatile List<String> advancedRoadBlockIds = List.of();
     public static final ForgeConfigSpec.ConfigValue<List<? extends String>> ADVANCED_ROAD_BLOCKS;
 
     static {
@@ -75,6 +88,14 @@ public class SpeedModConfig {
         SPEED_EFFECT_MESSAGES = builder
                 .comment("启用速度效果消息提示", "Enable speed effect message prompts", "默认/Default: false")
                 .define("speedEffectMessages", false);
+        DEBUG_SAMPLE_INTERVAL = builder
+                .comment("调试追踪：每名玩家每隔多少 tick 输出一次逐 tick 日志", "Debug trace: per-player sampling interval (ticks)",
+                        "范围: 1-1200", "默认: 20")
+                .defineInRange("debugSampleInterval", 20, 1, 1200);
+        DEBUG_MAX_LINES_PER_SECOND = builder
+                .comment("调试日志每秒最多输出行数，超出部分丢弃并汇总计数", "Max debug log lines per second (excess is dropped and counted)",
+                        "范围: 1-100000", "默认: 200")
+                .defineInRange("debugMaxLinesPerSecond", 200, 1, 100000);
         builder.pop();
 
         // ========== 游戏性配置 ==========
@@ -82,6 +103,39 @@ public class SpeedModConfig {
         CHECK_INTERVAL = builder
                 .comment("检查道路间隔（tick）", "Check interval (ticks)", "20 tick = 1秒", "范围: 1-200", "默认: 20")
                 .defineInRange("checkInterval", 20, 1, 200);
+        MAX_EVALUATIONS_PER_TICK = builder
+                .comment(
+                        "每 tick 最多完整评估的玩家数",
+                        "Max full player evaluations per tick",
+                        "玩家按 UUID 分散到检查间隔内的不同 tick，超出预算的顺延到下一 tick",
+                        "Players are spread across the check interval by UUID; evaluations over budget are deferred",
+                        "0 = 不限制/unlimited",
+                        "范围/Range: 0-10000",
+                        "默认/Default: 64")
+                .defineInRange("maxEvaluationsPerTick", 64, 0, 10000);
+        ADAPTIVE_CHECK_INTERVAL = builder
+                .comment(
+                        "启用自适应检查间隔",
+                        "Enable adaptive check interval",
+                        "按玩家水平速度和到道路边缘的距离调整间隔：疾跑/骑马和路口更频繁，静止和笔直长路更宽松",
+                        "Interval scales with horizontal speed and distance to the road edge",
+                        "启用后 checkInterval 不再使用",
+                        "默认/Default: false")
+                .define("adaptiveCheckInterval", false);
+        MIN_CHECK_INTERVAL = builder
+                .comment("自适应模式最小检查间隔（tick）", "Adaptive mode min interval (ticks)", "范围: 1-200", "默认: 2")
+                .defineInRange("minCheckInterval", 2, 1, 200);
+        MAX_CHECK_INTERVAL = builder
+                .comment("自适应模式最大检查间隔（tick）", "Adaptive mode max interval (ticks)", "范围: 1-200", "默认: 60")
+                .defineInRange("maxCheckInterval", 60, 1, 200);
+        VEHICLE_ROAD_SPEED = builder
+                .comment(
+                        "骑乘生物坐骑（马、骆驼等）时对坐骑应用道路加速",
+                        "Apply road speed to living mounts (horses, camels, ...) ridden by players",
+                        "倍率取骑手的旅途祝福等级或常驻加速；船、矿车等非生物载具不受影响",
+                        "Uses the rider's Travel Blessings level or permanent speed; boats and minecarts are not affected",
+                        "默认/Default: false")
+                .define("vehicleRoadSpeed", false);
         builder.pop();
 
         // ========== 常驻道路加速配置 ==========
@@ -217,7 +271,15 @@ public class SpeedModConfig {
 
     // 客户端配置
     public static boolean isDebugMessagesEnabled() {
-        return DEBUG_MESSAGES.get();
+        return debugEnabled;
+    }
+
+    public static int getDebugSampleInterval() {
+        return DEBUG_SAMPLE_INTERVAL.get();
+    }
+
+    public static int getDebugMaxLinesPerSecond() {
+        return DEBUG_MAX_LINES_PER_SECOND.get();
     }
 
     public static boolean isLoginMessagesEnabled() {
@@ -233,6 +295,29 @@ public class SpeedModConfig {
         return CHECK_INTERVAL.get();
     }
 
+    public static int getMaxEvaluationsPerTick() {
+        return MAX_EVALUATIONS_PER_TICK.get();
+    }
+
+    public static boolean isAdaptiveCheckIntervalEnabled() {
+        return ADAPTIVE_CHECK_INTERVAL.get();
+    }
+
+    public static boolean isVehicleRoadSpeedEnabled() {
+        return VEHICLE_ROAD_SPEED.get();
+    }
+
+    public static int getMinCheckInterval() {
+        return MIN_CHECK_INTERVAL.get();
+    }
+
+    /**
+     * 自适应模式最大检查间隔（不小于最小间隔）
+     */
+    public static int getMaxCheckInterval() {
+        return Math.max(MIN_CHECK_INTERVAL.get(), MAX_CHECK_INTERVAL.get());
+    }
+
     // ========== 常驻道路加速配置获取方法 ==========
     public static boolean isPermanentSpeedEnabled() {
         boolean value = ENABLE_PERMANENT_SPEED.get();
@@ -313,40 +398,40 @@ public class SpeedModConfig {
     }
 
     public static List<String> getBasicRoadBlockIds() {
-        if (basicRoadBlockIds.isEmpty()) {
-            basicRoadBlockIds.addAll(BASIC_ROAD_BLOCKS.get());
+        List<String> ids = basicRoadBlockIds;
+        if (ids.isEmpty()) {
+            ids = List.copyOf(BASIC_ROAD_BLOCKS.get());
+            basicRoadBlockIds = ids;
         }
-        return basicRoadBlockIds;
+        return ids;
     }
 
     public static List<String> getAdvancedRoadBlockIds() {
-        if (advancedRoadBlockIds.isEmpty()) {
-            advancedRoadBlockIds.addAll(ADVANCED_ROAD_BLOCKS.get());
+        List<String> ids = advancedRoadBlockIds;
+        if (ids.isEmpty()) {
+            ids = List.copyOf(ADVANCED_ROAD_BLOCKS.get());
+            advancedRoadBlockIds = ids;
         }
-        return advancedRoadBlockIds;
+        return ids;
     }
 
     public static void reloadRoadBlocks() {
-        basicRoadBlockIds.clear();
-        basicRoadBlockIds.addAll(BASIC_ROAD_BLOCKS.get());
-        advancedRoadBlockIds.clear();
-        advancedRoadBlockIds.addAll(ADVANCED_ROAD_BLOCKS.get());
+        basicRoadBlockIds = List.copyOf(BASIC_ROAD_BLOCKS.get());
+        advancedRoadBlockIds = List.copyOf(ADVANCED_ROAD_BLOCKS.get());
+        // 方块列表变化后重建分类索引
+        RoadBlockIndex.invalidate();
     }
 
     public static boolean isRoadBlock(net.minecraft.world.level.block.Block block) {
-        String blockId = net.minecraftforge.registries.ForgeRegistries.BLOCKS.getKey(block).toString();
-        return isAdvancedFeaturesEnabled() ? getAdvancedRoadBlockIds().contains(blockId)
-                : getBasicRoadBlockIds().contains(blockId);
+        return RoadBlockIndex.has(block, isAdvancedFeaturesEnabled() ? RoadBlockIndex.ADVANCED : RoadBlockIndex.BASIC);
     }
 
     public static boolean isBasicRoadBlock(net.minecraft.world.level.block.Block block) {
-        String blockId = net.minecraftforge.registries.ForgeRegistries.BLOCKS.getKey(block).toString();
-        return getBasicRoadBlockIds().contains(blockId);
+        return RoadBlockIndex.has(block, RoadBlockIndex.BASIC);
     }
 
     public static boolean isAdvancedRoadBlock(net.minecraft.world.level.block.Block block) {
-        String blockId = net.minecraftforge.registries.ForgeRegistries.BLOCKS.getKey(block).toString();
-        return getAdvancedRoadBlockIds().contains(blockId);
+        return RoadBlockIndex.has(block, RoadBlockIndex.ADVANCED);
     }
 
     // ========== 配置验证和工具方法 ==========
@@ -407,33 +492,49 @@ public class SpeedModConfig {
 
     // ========== 🔥 调试方法：打印配置状态 ==========
     public static void debugPrintConfig() {
-        System.out.println("========== 阡陌疾旅配置状态 ==========");
-        System.out.println("常驻加速启用: " + isPermanentSpeedEnabled());
-        System.out.println("常驻加速倍率: " + getPermanentSpeedMultiplier());
-        System.out.println("调试模式: " + isDebugMessagesEnabled());
-        System.out.println("检查间隔: " + getCheckInterval());
-        System.out.println("方向检测: " + isDirectionalDetectionEnabled());
-        System.out.println("方向检测最小长度: " + getMinDirectionalLength());
-        System.out.println("方向检测最大长度: " + getMaxDirectionalLength());
-        System.out.println("高级功能: " + isAdvancedFeaturesEnabled());
-        System.out.println("检测模式: " + getRoadDetectionMode());
-        System.out.println("基础道路方块数: " + getBasicRoadBlockIds().size());
-        System.out.println("高级道路方块数: " + getAdvancedRoadBlockIds().size());
-        System.out.println("======================================");
+        QianmoSpeedMod.LOGGER.info("========== 阡陌疾旅配置状态 ==========");
+        QianmoSpeedMod.LOGGER.info("常驻加速启用: {}", isPermanentSpeedEnabled());
+        QianmoSpeedMod.LOGGER.info("常驻加速倍率: {}", getPermanentSpeedMultiplier());
+        QianmoSpeedMod.LOGGER.info("调试模式: {}", isDebugMessagesEnabled());
+        QianmoSpeedMod.LOGGER.info("检查间隔: {}", getCheckInterval());
+        QianmoSpeedMod.LOGGER.info("每tick评估上限: {}", getMaxEvaluationsPerTick());
+        QianmoSpeedMod.LOGGER.info("自适应间隔: {} ({}-{})",
+                isAdaptiveCheckIntervalEnabled(), getMinCheckInterval(), getMaxCheckInterval());
+        QianmoSpeedMod.LOGGER.info("方向检测: {}", isDirectionalDetectionEnabled());
+        QianmoSpeedMod.LOGGER.info("方向检测最小长度: {}", getMinDirectionalLength());
+        QianmoSpeedMod.LOGGER.info("方向检测最大长度: {}", getMaxDirectionalLength());
+        QianmoSpeedMod.LOGGER.info("高级功能: {}", isAdvancedFeaturesEnabled());
+        QianmoSpeedMod.LOGGER.info("检测模式: {}", getRoadDetectionMode());
+        QianmoSpeedMod.LOGGER.info("基础道路方块数: {}", getBasicRoadBlockIds().size());
+        QianmoSpeedMod.LOGGER.info("高级道路方块数: {}", getAdvancedRoadBlockIds().size());
+        QianmoSpeedMod.LOGGER.info("======================================");
     }
 
     // ========== 📢 配置变更监听 ==========
 
     /**
      * 当配置变更时调用，清除检测器缓存
+     * <p>
+     * 热重载时在 Forge 的配置监视线程上调用：这里只替换快照字段，判定缓存和连续长度索引
+     * 只在服务器线程上访问，清除工作交给服务器线程执行。
      */
     public static void onConfigChanged() {
-        // 清除道路检测器缓存
-        com.example.qianmospeed.road.RoadDetectionFactory.invalidateCache();
+        // 刷新调试开关快照
+        debugEnabled = DEBUG_MESSAGES.get();
+        com.example.qianmospeed.util.DebugTrace.refresh();
 
-        // 重新加载道路方块列表
+        // 先重新加载道路方块列表（分类索引随之失效），再清除缓存，
+        // 避免服务器线程在两步之间按旧列表重新填充缓存
         reloadRoadBlocks();
 
+        // 清除道路检测器缓存
+        net.minecraft.server.MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            server.execute(com.example.qianmospeed.road.RoadDetectionFactory::invalidateCache);
+        } else {
+            com.example.qianmospeed.road.RoadDetectionFactory.invalidateCache();
+        }
+
         if (isDebugMessagesEnabled()) {
             QianmoSpeedMod.LOGGER.info("配置已变更，检测器缓存已清除");
         }
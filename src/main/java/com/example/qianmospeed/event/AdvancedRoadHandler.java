@@ -3,9 +3,12 @@ package com.example.qianmospeed.event;
 import com.example.qianmospeed.config.SpeedModConfig;
 import com.example.qianmospeed.QianmoSpeedMod;
 import com.example.qianmospeed.util.RoadWeaverH2Helper;
+import com.example.qianmospeed.util.TimingProfiler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.ModList;
 import net.minecraftforge.fml.common.Mod;
 
@@ -28,6 +31,8 @@ public class AdvancedRoadHandler {
     private static boolean initialized = false;
     private static boolean roadWeaverAvailable = false;
 
+    private static final TimingProfiler.Timer CONTEXT_PROFILE = TimingProfiler.timer("roadweaver.getRoadContext");
+
     /**
      * 道路检测上下文结果
      */
@@ -88,12 +93,27 @@ public class AdvancedRoadHandler {
         return roadWeaverAvailable;
     }
 
+    /**
+     * 世界加载时在后台预加载该维度的道路数据（优先读取磁盘快照）
+     */
+    @SubscribeEvent
+    public static void onLevelLoad(LevelEvent.Load event) {
+        if (roadWeaverAvailable && event.getLevel() instanceof ServerLevel serverLevel) {
+            RoadWeaverH2Helper.preload(serverLevel);
+        }
+    }
+
     // ==================== 规划区块查询 ====================
     public static boolean isPlannedChunk(ServerLevel level, ChunkPos chunk) {
         if (!roadWeaverAvailable) return false;
         return RoadWeaverH2Helper.isPlannedChunk(level, chunk);
     }
 
+    public static boolean isPlannedChunk(ServerLevel level, int chunkX, int chunkZ) {
+        if (!roadWeaverAvailable) return false;
+        return RoadWeaverH2Helper.isPlannedChunk(level, chunkX, chunkZ);
+    }
+
     public static Set<Long> getPlannedChunks(ServerLevel level) {
         if (!roadWeaverAvailable) return Collections.emptySet();
         return RoadWeaverH2Helper.getPlannedChunks(level);
@@ -117,26 +137,16 @@ public class AdvancedRoadHandler {
     public static RoadContext getRoadContext(ServerLevel level, BlockPos pos) {
         if (!roadWeaverAvailable) return RoadContext.NONE;
 
-        // 优先级：高速公路 > 已完成道路 > 道路段 > 规划中
-        if (RoadWeaverH2Helper.isOnHighway(level, pos)) {
-            return RoadContext.HIGHWAY;
-        }
-
-        if (RoadWeaverH2Helper.isOnCompletedRoad(level, pos)) {
-            return RoadContext.COMPLETED_ROAD;
-        }
-
-        // 道路段精确检测（H2 数据）
-        if (RoadWeaverH2Helper.isOnRoadSegment(level, pos)) {
-            return RoadContext.COMPLETED_ROAD;
-        }
-
-        ChunkPos chunk = new ChunkPos(pos);
-        if (RoadWeaverH2Helper.isPlannedChunk(level, chunk)) {
-            return RoadContext.PLANNED;
-        }
-
-        return RoadContext.NONE;
+        // 优先级：高速公路 > 已完成道路 > 道路段 > 规划中（同一快照上一次判定）
+        long start = CONTEXT_PROFILE.begin();
+        RoadContext context = switch (RoadWeaverH2Helper.queryRoad(level, pos)) {
+            case RoadWeaverH2Helper.ROAD_HIGHWAY -> RoadContext.HIGHWAY;
+            case RoadWeaverH2Helper.ROAD_COMPLETED, RoadWeaverH2Helper.ROAD_SEGMENT -> RoadContext.COMPLETED_ROAD;
+            case RoadWeaverH2Helper.ROAD_PLANNED -> RoadContext.PLANNED;
+            default -> RoadContext.NONE;
+        };
+        CONTEXT_PROFILE.end(start);
+        return context;
     }
 
     /**
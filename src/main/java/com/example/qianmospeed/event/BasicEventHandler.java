@@ -2,20 +2,26 @@ package com.example.qianmospeed.event;
 
 import com.example.qianmospeed.QianmoSpeedMod;
 import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.metrics.ModMetrics;
+import com.example.qianmospeed.road.RoadBlockIndex;
+import com.example.qianmospeed.registry.EnchantmentRegistry;
 import com.example.qianmospeed.road.RoadDetectionFactory;
+import com.example.qianmospeed.util.AllocationProbe;
 import com.example.qianmospeed.util.LocalizationHelper;
 import com.example.qianmospeed.util.RoadWeaverH2Helper;
+import com.example.qianmospeed.util.DebugTrace;
+import com.example.qianmospeed.util.TimingProfiler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EquipmentSlot;
 import net.minecraft.world.entity.ai.attributes.AttributeInstance;
 import net.minecraft.world.entity.ai.attributes.AttributeModifier;
 import net.minecraft.world.entity.ai.attributes.Attributes;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
-import net.minecraft.world.item.enchantment.Enchantment;
 import net.minecraft.world.item.enchantment.EnchantmentHelper;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
@@ -24,29 +30,13 @@ import net.minecraftforge.event.entity.living.LivingEquipmentChangeEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
-import net.minecraftforge.registries.ForgeRegistries;
 
 import java.util.*;
 
 @Mod.EventBusSubscriber(modid = QianmoSpeedMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class BasicEventHandler {
-    // ========== 独立的间隔追踪 ==========
-    private static final Map<UUID, Integer> lastEnchantmentCheckTicks = new HashMap<>();
-    private static final Map<UUID, Integer> lastPermanentCheckTicks = new HashMap<>();
-
-    // 玩家状态追踪
-    private static final Map<UUID, Integer> playerSpeedLevels = new HashMap<>();
-    private static final Map<UUID, Integer> playerStableSpeedLevels = new HashMap<>();
-    private static final Map<UUID, AirborneState> playerAirborneStates = new HashMap<>();
-    private static final Map<UUID, Boolean> playerPermanentSpeedActive = new HashMap<>();
-    // RoadWeaver 道路类型追踪
-    private static final Map<UUID, AdvancedRoadHandler.RoadContext> playerRWContext = new HashMap<>();
-    // 成就追踪：是否已授予"健步如飞"
-    private static final Set<UUID> grantedFirstStep = new HashSet<>();
-
-    // 定期清理：每 5 分钟清理一次过期条目
-    private static long lastStaleCleanupTick = 0;
-    private static final long STALE_CLEANUP_INTERVAL = 6000; // 5 minutes @ 20 TPS
+    // ========== 玩家状态（登录时创建，登出时移除）==========
+    private static final Map<UUID, PlayerRoadState> playerStates = new HashMap<>();
 
     // UUID
     private static final UUID TRAVEL_BLESSINGS_MODIFIER_UUID = UUID
@@ -54,12 +44,43 @@ public class BasicEventHandler {
     private static final UUID PERMANENT_SPEED_MODIFIER_UUID = UUID
             .nameUUIDFromBytes((QianmoSpeedMod.MODID + ":permanent_road_speed_modifier").getBytes());
 
+    /**
+     * 获取玩家状态（正常情况下登录时已创建）
+     */
+    static PlayerRoadState getState(Player player) {
+        return playerStates.computeIfAbsent(player.getUUID(), id -> new PlayerRoadState());
+    }
+
+    // ========== 靴子附魔等级缓存 ==========
+    /**
+     * 读取靴子上的旅途祝福等级（会读取附魔 NBT，只在刷新时调用）
+     */
+    private static int readTravelBlessingsLevel(ItemStack boots) {
+        if (boots.isEmpty()) return 0;
+        return EnchantmentHelper.getItemEnchantmentLevel(EnchantmentRegistry.TRAVEL_BLESSINGS.get(), boots);
+    }
+
+    private static void refreshTravelBlessingsLevel(PlayerRoadState state, ItemStack boots) {
+        state.travelBlessingsLevel = readTravelBlessingsLevel(boots);
+        state.travelBlessingsKnown = true;
+    }
+
+    /**
+     * 缓存的旅途祝福等级（状态新建后首次访问时读取一次）
+     */
+    static int getTravelBlessingsLevel(Player player, PlayerRoadState state) {
+        if (!state.travelBlessingsKnown) {
+            refreshTravelBlessingsLevel(state, player.getItemBySlot(EquipmentSlot.FEET));
+        }
+        return state.travelBlessingsLevel;
+    }
+
     // ========== RoadWeaver 倍率计算 ==========
     /**
      * 根据 RoadWeaver 道路类型返回对应的速度倍率
      * 非 RW 道路返回 1.0（不影响原逻辑）
      */
-    private static double getRoadWeaverMultiplier(AdvancedRoadHandler.RoadContext context) {
+    static double getRoadWeaverMultiplier(AdvancedRoadHandler.RoadContext context) {
         return switch (context) {
             case HIGHWAY -> SpeedModConfig.getRWHighwaySpeedMultiplier();
             case COMPLETED_ROAD -> SpeedModConfig.getRWCompletedRoadSpeedMultiplier();
@@ -71,16 +92,15 @@ public class BasicEventHandler {
     /**
      * 尝试授予"健步如飞"成就（仅首次）
      */
-    private static void tryGrantFirstStepAdvancement(Player player) {
-        UUID playerId = player.getUUID();
-        if (grantedFirstStep.contains(playerId)) return;
+    private static void tryGrantFirstStepAdvancement(Player player, PlayerRoadState state) {
+        if (state.grantedFirstStep) return;
         if (!(player instanceof ServerPlayer serverPlayer)) return;
 
         var adv = serverPlayer.getServer().getAdvancements()
                 .getAdvancement(new net.minecraft.resources.ResourceLocation(QianmoSpeedMod.MODID, "first_step"));
         if (adv != null) {
             serverPlayer.getAdvancements().award(adv, "first_speed");
-            grantedFirstStep.add(playerId);
+            state.grantedFirstStep = true;
         }
     }
     /**
@@ -101,88 +121,70 @@ public class BasicEventHandler {
     }
 
     /**
-     * 玩家腾空状态跟踪类
+     * 检查是否是不完整方块
      */
-    private static class AirborneState {
-        boolean wasOnRoad;
-        int roadLevel;
-        long airborneStartTime;
-        BlockPos takeoffPosition;
-        int consecutiveAirborneTicks;
-        int consecutiveGroundTicks;
-
-        AirborneState(boolean wasOnRoad, int roadLevel, BlockPos takeoffPos) {
-            this.wasOnRoad = wasOnRoad;
-            this.roadLevel = roadLevel;
-            this.airborneStartTime = System.currentTimeMillis();
-            this.takeoffPosition = takeoffPos;
-            this.consecutiveAirborneTicks = 0;
-            this.consecutiveGroundTicks = 0;
-        }
+    private static boolean isIncompleteBlock(BlockState state) {
+        return RoadBlockIndex.has(state.getBlock(), RoadBlockIndex.INCOMPLETE);
+    }
 
-        void incrementAirborneTick() {
-            consecutiveAirborneTicks++;
-            consecutiveGroundTicks = 0;
-        }
+    // ========== ⭐⭐⭐ 核心：统一道路检测方法（只检测脚下那一块）⭐⭐⭐ ==========
+    // 玩家停留在同一方块上时复用上次的判定；方块变化/缓存失效或超过该间隔才重新检测
+    static final int ROAD_RECHECK_INTERVAL = 100; // 5秒
 
-        void incrementGroundTick() {
-            consecutiveGroundTicks++;
-        }
+    // 检测用的可变坐标（只在服务器线程上使用；检测器和判定缓存只读取坐标，不保留该对象）
+    private static final BlockPos.MutableBlockPos TARGET_POS = new BlockPos.MutableBlockPos();
 
-        boolean isValid() {
-            return consecutiveAirborneTicks <= 60; // 3秒
-        }
-
-        boolean shouldEndAirborne() {
-            return consecutiveGroundTicks >= 2; // 0.1秒
-        }
-    }
+    private static final TimingProfiler.HitCounter VERDICT_PROFILE = TimingProfiler.hitCounter("player.verdict");
 
     /**
-     * 检查是否是不完整方块
+     * 玩家（或坐骑）脚下需要检测的方块（BlockPos.asLong）
      */
-    private static boolean isIncompleteBlock(BlockState state) {
-        String blockId = ForgeRegistries.BLOCKS.getKey(state.getBlock()).toString();
-        return blockId.contains("slab") ||
-                blockId.contains("stairs") ||
-                blockId.contains("carpet") ||
-                blockId.contains("snow") ||
-                blockId.contains("layer") ||
-                blockId.contains("farmland") ||
-                blockId.contains("path");
+    static long getTargetBlockKey(Entity entity) {
+        BlockPos entityPos = entity.blockPosition();
+        return BlockPos.asLong(entityPos.getX(), getTargetBlockY(entity.getY()), entityPos.getZ());
     }
 
-    // ========== ⭐⭐⭐ 核心：统一道路检测方法（只检测脚下那一块）⭐⭐⭐ ==========
-    private static boolean checkRoadWithMultiLayer(Level level, Player player) {
+    private static boolean checkRoadWithMultiLayer(Level level, Player player, PlayerRoadState state) {
         double playerY = player.getY(); // 获取玩家的精确 Y 坐标
         BlockPos playerPos = player.blockPosition(); // 取整后的位置
 
         // 根据玩家 Y 坐标计算应该检测的目标 Y
         int targetY = getTargetBlockY(playerY);
+        long targetKey = BlockPos.asLong(playerPos.getX(), targetY, playerPos.getZ());
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("道路检测 - 玩家Y: {}, floorY: {}, targetY: {}",
-                    playerY, Math.floor(playerY), targetY);
+        // 骑乘时与坐骑上的其他乘客共用坐骑的判定
+        VehicleRoadState vehicle = VehicleRoadHandler.getSharedState(player);
+        if (vehicle != null) {
+            return vehicle.lastRoadVerdict;
+        }
+
+        // 本 tick 的批量评估阶段通常已写入判定，这里直接命中
+
+        int tick = player.tickCount;
+        boolean remembered = state.isRoadVerdictValid(level, targetKey, tick, ROAD_RECHECK_INTERVAL);
+        VERDICT_PROFILE.record(remembered);
+        if (remembered) {
+            return state.lastRoadVerdict;
         }
 
         // ⭐⭐⭐ 只检测脚下的那一块方块 ⭐⭐⭐
-        BlockPos targetPos = new BlockPos(playerPos.getX(), targetY, playerPos.getZ());
+        BlockPos targetPos = TARGET_POS.set(playerPos.getX(), targetY, playerPos.getZ());
         boolean isRoad = RoadDetectionFactory.isOnRoad(level, targetPos);
+        state.rememberRoadVerdict(targetKey, isRoad, tick);
 
-        if (SpeedModConfig.isDebugMessagesEnabled() && isRoad) {
-            QianmoSpeedMod.LOGGER.debug("道路检测: 脚下位置 {} 是道路", targetPos);
+        // 逐次检测日志按玩家采样
+        if (DebugTrace.samplePlayer(player, tick)) {
+            DebugTrace.log("道路检测 - 玩家Y: {}, targetY: {}, 脚下位置 {} {}",
+                    playerY, targetY, targetPos, isRoad ? "是道路" : "不是道路");
         }
 
         return isRoad;
     }
 
     // ========== 统一腾空维持检查（附魔和常驻共用）==========
-    private static boolean shouldMaintainSpeedBonus(Player player) {
-        UUID playerId = player.getUUID();
-        AirborneState state = playerAirborneStates.get(playerId);
-
+    private static boolean shouldMaintainSpeedBonus(Player player, PlayerRoadState state) {
         // 如果没有腾空状态，不维持
-        if (state == null) {
+        if (!state.airborne) {
             return false;
         }
 
@@ -192,19 +194,19 @@ public class BasicEventHandler {
         }
 
         // 腾空时间太长，不维持
-        if (!state.isValid()) {
+        if (!state.isAirborneValid()) {
             return false;
         }
 
         // 如果在地面，检查是否还在道路上
         if (player.onGround()) {
             // ⭐⭐⭐ 使用同样的脚下检测方法 ⭐⭐⭐
-            boolean onRoadNow = checkRoadWithMultiLayer(player.level(), player);
+            boolean onRoadNow = checkRoadWithMultiLayer(player.level(), player, state);
 
             // 需要连续2 tick不在道路才移除
             if (!onRoadNow) {
                 if (state.consecutiveGroundTicks >= 2) {
-                    playerAirborneStates.remove(playerId);
+                    state.endAirborne();
                     return false;
                 }
                 // 刚落地，还在第一 tick，继续维持
@@ -220,8 +222,8 @@ public class BasicEventHandler {
     /**
      * 更新腾空状态 - 附魔和常驻共用
      */
-    private static void updateAirborneState(Player player, boolean isOnRoad, int roadLevel, BlockPos currentPos) {
-        UUID playerId = player.getUUID();
+    private static void updateAirborneState(Player player, PlayerRoadState state, boolean isOnRoad, int roadLevel,
+            long currentPos) {
         boolean isAirborne = !player.onGround() &&
                 !player.isInWater() &&
                 !player.isInLava() &&
@@ -229,16 +231,13 @@ public class BasicEventHandler {
                 !player.isPassenger() &&
                 !player.isSwimming();
 
-        AirborneState state = playerAirborneStates.get(playerId);
-
         if (isAirborne) {
-            if (state == null) {
+            if (!state.airborne) {
                 // 重要：起跳时记录是否在道路上
-                state = new AirborneState(isOnRoad, roadLevel, currentPos);
-                playerAirborneStates.put(playerId, state);
+                state.startAirborne(isOnRoad, roadLevel, currentPos);
 
-                if (SpeedModConfig.isDebugMessagesEnabled() && isOnRoad) {
-                    QianmoSpeedMod.LOGGER.debug("玩家 {} 从道路起跳，将维持加速", player.getName().getString());
+                if (DebugTrace.enabled() && isOnRoad) {
+                    DebugTrace.log("玩家 {} 从道路起跳，将维持加速", player.getName().getString());
                 }
             } else {
                 state.incrementAirborneTick();
@@ -249,11 +248,11 @@ public class BasicEventHandler {
                 }
             }
         } else {
-            if (state != null) {
+            if (state.airborne) {
                 state.incrementGroundTick();
                 // 需要连续2 tick在地面才结束腾空状态
                 if (state.shouldEndAirborne()) {
-                    playerAirborneStates.remove(playerId);
+                    state.endAirborne();
                 }
             }
         }
@@ -261,10 +260,8 @@ public class BasicEventHandler {
 
     // ========== 清理玩家数据 ==========
     private static void cleanupPlayerData(Player player) {
-        UUID playerId = player.getUUID();
-
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("清理玩家数据: {}", player.getName().getString());
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("清理玩家数据: {}", player.getName().getString());
         }
 
         // 移除实际效果
@@ -272,82 +269,68 @@ public class BasicEventHandler {
         removePermanentSpeedEffect(player);
 
         // 清理内存状态
-        playerSpeedLevels.remove(playerId);
-        playerStableSpeedLevels.remove(playerId);
-        playerPermanentSpeedActive.remove(playerId);
-        lastEnchantmentCheckTicks.remove(playerId);
-        lastPermanentCheckTicks.remove(playerId);
-        playerAirborneStates.remove(playerId);
-        playerRWContext.remove(playerId);
-        // 注意：不清理 grantedFirstStep，成就只授予一次，跨会话保持
-    }
-
-    /**
-     * 定期清理已离线的玩家的过期状态条目，防止内存泄漏
-     */
-    private static void cleanupStaleEntries(Level level) {
-        if (!(level instanceof ServerLevel serverLevel)) return;
-
-        Set<UUID> onlinePlayers = new HashSet<>();
-        for (ServerPlayer sp : serverLevel.getServer().getPlayerList().getPlayers()) {
-            onlinePlayers.add(sp.getUUID());
+        // 注意：不清理成就标记，成就只授予一次
+        PlayerRoadState state = playerStates.get(player.getUUID());
+        if (state != null) {
+            state.reset();
         }
+    }
 
-        int removed = 0;
-        removed += removeOfflineEntries(playerSpeedLevels, onlinePlayers);
-        removed += removeOfflineEntries(playerStableSpeedLevels, onlinePlayers);
-        removed += removeOfflineEntries(playerPermanentSpeedActive, onlinePlayers);
-        removed += removeOfflineEntries(lastEnchantmentCheckTicks, onlinePlayers);
-        removed += removeOfflineEntries(lastPermanentCheckTicks, onlinePlayers);
-        removed += removeOfflineEntries(playerAirborneStates, onlinePlayers);
-        removed += removeOfflineEntries(playerRWContext, onlinePlayers);
-        // 不清理 grantedFirstStep：用 Set<UUID> 而非 Map，需特殊处理
-        grantedFirstStep.removeIf(uuid -> !onlinePlayers.contains(uuid));
+    // ========== 属性修饰器工具方法 ==========
+    // 每次增删修饰器都会让属性重新计算并向客户端同步，所以只在数值真正变化时才改动
 
-        if (removed > 0 && SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("清理了 {} 条过期玩家状态", removed);
-        }
-    }
+    private static final TimingProfiler.Timer ATTRIBUTE_PROFILE = TimingProfiler.timer("attribute.update");
 
-    private static <V> int removeOfflineEntries(Map<UUID, V> map, Set<UUID> onlinePlayers) {
-        int before = map.size();
-        map.keySet().removeIf(uuid -> !onlinePlayers.contains(uuid));
-        return before - map.size();
+    /**
+     * 启动以来速度修饰器的实际改动次数（添加、替换数值或移除各计一次）
+     */
+    public static long getAttributeUpdateCount() {
+        return ModMetrics.ATTRIBUTE_UPDATES.sum();
     }
 
-    // ========== 属性修饰器工具方法 ==========
     private static boolean hasAttributeModifier(AttributeInstance attribute, UUID modifierId) {
-        if (attribute == null)
-            return false;
-        for (AttributeModifier modifier : attribute.getModifiers()) {
-            if (modifier.getId().equals(modifierId)) {
-                return true;
-            }
-        }
-        return false;
+        return attribute != null && attribute.getModifier(modifierId) != null;
     }
 
-    private static void removeAttributeModifier(AttributeInstance attribute, UUID modifierId) {
+    static void removeAttributeModifier(AttributeInstance attribute, UUID modifierId) {
         if (attribute == null)
             return;
-        AttributeModifier toRemove = null;
-        for (AttributeModifier modifier : attribute.getModifiers()) {
-            if (modifier.getId().equals(modifierId)) {
-                toRemove = modifier;
-                break;
-            }
+        long start = ATTRIBUTE_PROFILE.begin();
+        attribute.removeModifier(modifierId);
+        ATTRIBUTE_PROFILE.end(start);
+        ModMetrics.ATTRIBUTE_UPDATES.increment();
+    }
+
+    /**
+     * 设置速度修饰器的加成值（已有相同数值的修饰器时不做任何改动）
+     * <p>
+     * 当前数值直接从属性实例按 UUID 读取，不在玩家状态里另存一份：重生、换维度或其他模组移除修饰器后不会过期。
+     *
+     * @return 是否实际改动了属性
+     */
+    static boolean updateSpeedModifier(AttributeInstance attribute, UUID modifierId, String name,
+            double amount) {
+        AttributeModifier existing = attribute.getModifier(modifierId);
+        if (existing != null && existing.getAmount() == amount) {
+            return false;
         }
-        if (toRemove != null) {
-            attribute.removeModifier(toRemove);
+
+        long start = ATTRIBUTE_PROFILE.begin();
+        if (existing != null) {
+            attribute.removeModifier(modifierId);
         }
+        attribute.addTransientModifier(new AttributeModifier(
+                modifierId, name, amount, AttributeModifier.Operation.MULTIPLY_TOTAL));
+        ATTRIBUTE_PROFILE.end(start);
+        ModMetrics.ATTRIBUTE_UPDATES.increment();
+        return true;
     }
 
     // ========== 常驻加速核心方法 ==========
-    private static void applyPermanentSpeedEffect(Player player) {
-        UUID playerId = player.getUUID();
+    private static void applyPermanentSpeedEffect(Player player, PlayerRoadState state) {
         double baseMultiplier = SpeedModConfig.getPermanentSpeedMultiplier();
         // RoadWeaver 加成：取基础倍率和 RW 倍率中较高者
-        AdvancedRoadHandler.RoadContext rwCtx = playerRWContext.getOrDefault(playerId, AdvancedRoadHandler.RoadContext.NONE);
+        AdvancedRoadHandler.RoadContext rwCtx = state.rwContext;
         double rwMult = getRoadWeaverMultiplier(rwCtx);
         double multiplier = Math.max(baseMultiplier, rwMult);
         double speedBonus = multiplier - 1.0;
@@ -356,26 +339,17 @@ public class BasicEventHandler {
         if (movementSpeed == null)
             return;
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("★★★★★ 【常驻加速】应用！玩家={}, 基础倍率={}, RW类型={}, RW倍率={}, 最终倍率={}, 加成={}%",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("★★★★★ 【常驻加速】应用！玩家={}, 基础倍率={}, RW类型={}, RW倍率={}, 最终倍率={}, 加成={}%",
                     player.getName().getString(), baseMultiplier, rwCtx, rwMult, multiplier, (int) (speedBonus * 100));
         }
 
-        AttributeModifier speedModifier = new AttributeModifier(
-                PERMANENT_SPEED_MODIFIER_UUID,
-                "PermanentRoadSpeedBonus",
-                speedBonus,
-                AttributeModifier.Operation.MULTIPLY_TOTAL);
-
-        if (hasAttributeModifier(movementSpeed, PERMANENT_SPEED_MODIFIER_UUID)) {
-            removeAttributeModifier(movementSpeed, PERMANENT_SPEED_MODIFIER_UUID);
-        }
-
-        movementSpeed.addTransientModifier(speedModifier);
-        playerPermanentSpeedActive.put(playerId, true);
+        updateSpeedModifier(movementSpeed, PERMANENT_SPEED_MODIFIER_UUID, "PermanentRoadSpeedBonus",
+                speedBonus);
+        state.permanentSpeedActive = true;
 
         // 首次加速 → 授予成就
-        tryGrantFirstStepAdvancement(player);
+        tryGrantFirstStepAdvancement(player, state);
     }
 
     private static void removePermanentSpeedEffect(Player player) {
@@ -385,24 +359,22 @@ public class BasicEventHandler {
 
         if (hasAttributeModifier(movementSpeed, PERMANENT_SPEED_MODIFIER_UUID)) {
             removeAttributeModifier(movementSpeed, PERMANENT_SPEED_MODIFIER_UUID);
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("【移除常驻】玩家={} 的常驻道路加速已移除", player.getName().getString());
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("【移除常驻】玩家={} 的常驻道路加速已移除", player.getName().getString());
             }
         }
     }
 
     // ========== 常驻加速主逻辑（使用统一腾空判断）==========
-    private static void handlePermanentRoadSpeed(Player player, int currentTick) {
-        UUID playerId = player.getUUID();
-
+    private static void handlePermanentRoadSpeed(Player player, PlayerRoadState state, int currentTick) {
         // ========== 第一道防线：附魔检测 ==========
-        boolean hasActiveEnchantment = playerSpeedLevels.getOrDefault(playerId, 0) > 0;
+        boolean hasActiveEnchantment = state.speedLevel > 0;
         if (hasActiveEnchantment) {
-            if (playerPermanentSpeedActive.getOrDefault(playerId, false)) {
+            if (state.permanentSpeedActive) {
                 removePermanentSpeedEffect(player);
-                playerPermanentSpeedActive.put(playerId, false);
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("【常驻】附魔激活，强制移除常驻加速: 玩家={}", player.getName().getString());
+                state.permanentSpeedActive = false;
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("【常驻】附魔激活，强制移除常驻加速: 玩家={}", player.getName().getString());
                 }
             }
             return;
@@ -410,45 +382,44 @@ public class BasicEventHandler {
 
         // 1. 配置检查
         if (!SpeedModConfig.isPermanentSpeedEnabled()) {
-            if (playerPermanentSpeedActive.getOrDefault(playerId, false)) {
+            if (state.permanentSpeedActive) {
                 removePermanentSpeedEffect(player);
-                playerPermanentSpeedActive.put(playerId, false);
+                state.permanentSpeedActive = false;
             }
             return;
         }
 
-        // 2. 间隔控制
-        Integer lastCheck = lastPermanentCheckTicks.get(playerId);
-        int checkInterval = SpeedModConfig.getCheckInterval();
-        if (lastCheck != null && currentTick - lastCheck < checkInterval) {
+        // 2. 间隔控制（按玩家错开相位，并受每 tick 评估预算限制）
+        int lastCheck = state.lastPermanentCheckTick;
+        int checkInterval = CheckScheduler.intervalFor(state);
+        if (!CheckScheduler.tryBegin(state, lastCheck, currentTick, checkInterval)) {
             return;
         }
-        lastPermanentCheckTicks.put(playerId, currentTick);
+        state.lastPermanentCheckTick = CheckScheduler.alignToPhase(player, currentTick, checkInterval);
 
         // 3. ⭐⭐⭐ 统一道路检测（只检测脚下）⭐⭐⭐
-        boolean isOnRoad = checkRoadWithMultiLayer(player.level(), player);
+        boolean isOnRoad = checkRoadWithMultiLayer(player.level(), player, state);
+        CheckScheduler.refreshRoadMargins(player, state, isOnRoad);
 
         // 4. 更新腾空状态
-        BlockPos belowPlayer = player.blockPosition().below();
-        updateAirborneState(player, isOnRoad, 1, belowPlayer);
+        updateAirborneState(player, state, isOnRoad, 1, belowPlayerKey(player));
 
         // 5. 使用统一腾空维持检查
         boolean shouldMaintain = false;
         if (!isOnRoad) {
-            shouldMaintain = shouldMaintainSpeedBonus(player);
-            if (shouldMaintain && SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("玩家 {} 腾空中，维持常驻加速", player.getName().getString());
+            shouldMaintain = shouldMaintainSpeedBonus(player, state);
+            if (shouldMaintain && DebugTrace.enabled()) {
+                DebugTrace.log("玩家 {} 腾空中，维持常驻加速", player.getName().getString());
             }
         }
 
         // 6. 应用/移除效果
-        boolean currentlyActive = playerPermanentSpeedActive.getOrDefault(playerId, false);
+        boolean currentlyActive = state.permanentSpeedActive;
         double multiplier = SpeedModConfig.getPermanentSpeedMultiplier();
 
         if (isOnRoad || shouldMaintain) {
             if (!currentlyActive) {
-                applyPermanentSpeedEffect(player);
-                playerPermanentSpeedActive.put(playerId, true);
+                applyPermanentSpeedEffect(player, state);
 
                 if (SpeedModConfig.isSpeedEffectMessagesEnabled()) {
                     int percent = (int) Math.round((multiplier - 1.0) * 100);
@@ -459,7 +430,7 @@ public class BasicEventHandler {
         } else {
             if (currentlyActive) {
                 removePermanentSpeedEffect(player);
-                playerPermanentSpeedActive.put(playerId, false);
+                state.permanentSpeedActive = false;
 
                 if (SpeedModConfig.isSpeedEffectMessagesEnabled()) {
                     player.sendSystemMessage(Component.literal(
@@ -470,18 +441,18 @@ public class BasicEventHandler {
     }
 
     // ========== 附魔加速核心方法 ==========
-    private static void applySpeedEffect(Player player, int level) {
+    private static void applySpeedEffect(Player player, PlayerRoadState state, int level) {
         double baseMultiplier = SpeedModConfig.getSpeedMultiplier(level);
-        applySpeedEffectWithMultiplier(player, baseMultiplier, level);
+        applySpeedEffectWithMultiplier(player, state, baseMultiplier, level);
     }
 
     /**
      * 带 RoadWeaver 倍率的附魔加速版本
      */
-    private static void applySpeedEffectWithMultiplier(Player player, double baseMultiplier, int level) {
-        UUID playerId = player.getUUID();
+    private static void applySpeedEffectWithMultiplier(Player player, PlayerRoadState state, double baseMultiplier,
+            int level) {
         // RoadWeaver 加成：取基础倍率和 RW 倍率中较高者
-        AdvancedRoadHandler.RoadContext rwCtx = playerRWContext.getOrDefault(playerId, AdvancedRoadHandler.RoadContext.NONE);
+        AdvancedRoadHandler.RoadContext rwCtx = state.rwContext;
         double rwMult = getRoadWeaverMultiplier(rwCtx);
         double multiplier = Math.max(baseMultiplier, rwMult);
         double speedBonus = multiplier - 1.0;
@@ -491,31 +462,22 @@ public class BasicEventHandler {
             return;
 
         // 附魔生效时，强制移除常驻加速
-        if (playerPermanentSpeedActive.getOrDefault(playerId, false)) {
+        if (state.permanentSpeedActive) {
             removePermanentSpeedEffect(player);
-            playerPermanentSpeedActive.put(playerId, false);
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("附魔生效，移除常驻加速: 玩家={}", player.getName().getString());
+            state.permanentSpeedActive = false;
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("附魔生效，移除常驻加速: 玩家={}", player.getName().getString());
             }
         }
 
-        AttributeModifier speedModifier = new AttributeModifier(
-                TRAVEL_BLESSINGS_MODIFIER_UUID,
-                "TravelBlessingsSpeedBonus",
-                speedBonus,
-                AttributeModifier.Operation.MULTIPLY_TOTAL);
-
-        if (hasAttributeModifier(movementSpeed, TRAVEL_BLESSINGS_MODIFIER_UUID)) {
-            removeAttributeModifier(movementSpeed, TRAVEL_BLESSINGS_MODIFIER_UUID);
-        }
-
-        movementSpeed.addTransientModifier(speedModifier);
+        updateSpeedModifier(movementSpeed, TRAVEL_BLESSINGS_MODIFIER_UUID, "TravelBlessingsSpeedBonus",
+                speedBonus);
 
         // 首次加速 → 授予成就
-        tryGrantFirstStepAdvancement(player);
+        tryGrantFirstStepAdvancement(player, state);
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("应用附魔速度: 玩家={}, 等级={}, 基础倍率={}, RW类型={}, RW倍率={}, 最终倍率={}, 加成={}%",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("应用附魔速度: 玩家={}, 等级={}, 基础倍率={}, RW类型={}, RW倍率={}, 最终倍率={}, 加成={}%",
                     player.getName().getString(), level, baseMultiplier, rwCtx, rwMult, multiplier, (int) (speedBonus * 100));
         }
     }
@@ -526,8 +488,8 @@ public class BasicEventHandler {
             return;
         if (hasAttributeModifier(movementSpeed, TRAVEL_BLESSINGS_MODIFIER_UUID)) {
             removeAttributeModifier(movementSpeed, TRAVEL_BLESSINGS_MODIFIER_UUID);
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("【移除附魔】玩家={} 的旅途祝福效果已移除", player.getName().getString());
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("【移除附魔】玩家={} 的旅途祝福效果已移除", player.getName().getString());
             }
         }
     }
@@ -536,16 +498,19 @@ public class BasicEventHandler {
         removeSpeedAttribute(player);
     }
 
-    private static void handleSpeedEffect(Player player, Integer previousLevel, int newLevel) {
-        if (previousLevel != null && previousLevel > 0) {
-            removeSpeedEffect(player, previousLevel);
+    private static void handleSpeedEffect(Player player, PlayerRoadState state, int previousLevel, int newLevel) {
+        if (previousLevel > 0) {
+            // 等级变化时由下面的 applySpeedEffect 直接替换数值，不先移除
+            if (newLevel <= 0) {
+                removeSpeedEffect(player, previousLevel);
+            }
             if (SpeedModConfig.isSpeedEffectMessagesEnabled() && player instanceof ServerPlayer) {
                 player.sendSystemMessage(Component.literal("§7[阡陌疾旅] §f道路速度加成已移除"));
             }
         }
 
         if (newLevel > 0) {
-            applySpeedEffect(player, newLevel);
+            applySpeedEffect(player, state, newLevel);
             if (SpeedModConfig.isSpeedEffectMessagesEnabled() && player instanceof ServerPlayer) {
                 String romanNumeral = switch (newLevel) {
                     case 1 -> "I";
@@ -560,104 +525,94 @@ public class BasicEventHandler {
     }
 
     // ========== 附魔加速主逻辑（使用统一腾空判断）==========
-    private static boolean checkAndHandleEnchantmentSpeed(Player player, int currentTick, boolean knownIsOnRoad) {
-        UUID playerId = player.getUUID();
-
-        Integer lastCheck = lastEnchantmentCheckTicks.get(playerId);
-        int checkInterval = SpeedModConfig.getCheckInterval();
-        if (lastCheck != null && currentTick - lastCheck < checkInterval) {
-            return playerSpeedLevels.getOrDefault(playerId, 0) > 0;
-        }
-        lastEnchantmentCheckTicks.put(playerId, currentTick);
-
-        ItemStack boots = player.getInventory().getArmor(0);
-        if (!boots.isEmpty()) {
-            Map<Enchantment, Integer> enchantments = EnchantmentHelper.getEnchantments(boots);
-            Enchantment travelBlessingsEnchantment = ForgeRegistries.ENCHANTMENTS.getValue(
-                    new net.minecraft.resources.ResourceLocation(QianmoSpeedMod.MODID, "travel_blessings"));
-
-            if (travelBlessingsEnchantment != null && enchantments.containsKey(travelBlessingsEnchantment)) {
-                int enchantLevel = enchantments.get(travelBlessingsEnchantment);
-
-                // 使用传入的道路检测结果，避免重复检测
-                boolean isOnRoad = knownIsOnRoad;
-
-                BlockPos belowPlayer = player.blockPosition().below();
-                updateAirborneState(player, isOnRoad, enchantLevel, belowPlayer);
-
-                int newLevel;
-                if (isOnRoad) {
-                    newLevel = enchantLevel;
+    private static boolean checkAndHandleEnchantmentSpeed(Player player, PlayerRoadState state, int currentTick,
+            boolean knownIsOnRoad) {
+        int lastCheck = state.lastEnchantmentCheckTick;
+        int checkInterval = CheckScheduler.intervalFor(state);
+        if (!CheckScheduler.tryBegin(state, lastCheck, currentTick, checkInterval)) {
+            return state.speedLevel > 0;
+        }
+        state.lastEnchantmentCheckTick = CheckScheduler.alignToPhase(player, currentTick, checkInterval);
+        CheckScheduler.refreshRoadMargins(player, state, knownIsOnRoad);
+
+        int enchantLevel = getTravelBlessingsLevel(player, state);
+        if (enchantLevel > 0) {
+            // 使用传入的道路检测结果，避免重复检测
+            boolean isOnRoad = knownIsOnRoad;
+
+            updateAirborneState(player, state, isOnRoad, enchantLevel, belowPlayerKey(player));
+
+            int newLevel;
+            if (isOnRoad) {
+                newLevel = enchantLevel;
+            } else {
+                // 使用统一腾空维持检查
+                if (shouldMaintainSpeedBonus(player, state)) {
+                    newLevel = state.airborne ? state.roadLevel : enchantLevel;
                 } else {
-                    // 使用统一腾空维持检查
-                    if (shouldMaintainSpeedBonus(player)) {
-                        AirborneState state = playerAirborneStates.get(playerId);
-                        newLevel = state != null ? state.roadLevel : enchantLevel;
-                    } else {
-                        newLevel = 0;
-                    }
+                    newLevel = 0;
                 }
+            }
 
-                Integer previousLevel = playerSpeedLevels.get(playerId);
-                Integer stableLevel = playerStableSpeedLevels.get(playerId);
+            updateStableSpeedLevel(player, state, newLevel);
 
-                if (stableLevel == null || stableLevel != newLevel) {
-                    playerStableSpeedLevels.put(playerId, newLevel);
-                } else {
-                    if (previousLevel == null || previousLevel != newLevel) {
-                        handleSpeedEffect(player, previousLevel, newLevel);
-                    }
-                    playerSpeedLevels.put(playerId, newLevel);
-                }
-
-                return newLevel > 0;
-            }
+            return newLevel > 0;
         }
 
         // 没有附魔，清理效果
-        Integer previousLevel = playerSpeedLevels.get(playerId);
-        if (previousLevel != null && previousLevel > 0) {
+        int previousLevel = state.speedLevel;
+        if (previousLevel > 0) {
             removeSpeedEffect(player, previousLevel);
-            playerSpeedLevels.put(playerId, 0);
-            playerStableSpeedLevels.put(playerId, 0);
+            state.speedLevel = 0;
+            state.stableSpeedLevel = 0;
         }
-        playerAirborneStates.remove(playerId);
+        state.endAirborne();
 
         return false;
     }
 
-    // ========== 立即激活附魔的方法 ==========
-    private static void handleEnchantmentSpeedImmediate(Player player, int currentTick, int enchantLevel,
-            boolean isOnRoad) {
-        UUID playerId = player.getUUID();
+    /**
+     * 等级需连续两次检查一致才生效（防抖）
+     */
+    private static void updateStableSpeedLevel(Player player, PlayerRoadState state, int newLevel) {
+        if (state.stableSpeedLevel != newLevel) {
+            state.stableSpeedLevel = newLevel;
+        } else {
+            if (state.speedLevel != newLevel) {
+                handleSpeedEffect(player, state, state.speedLevel, newLevel);
+            }
+            state.speedLevel = newLevel;
+        }
+    }
 
+    /**
+     * 玩家脚下方块位置（压缩为 long，避免创建 BlockPos）
+     */
+    private static long belowPlayerKey(Player player) {
+        BlockPos pos = player.blockPosition();
+        return BlockPos.asLong(pos.getX(), pos.getY() - 1, pos.getZ());
+    }
+
+    // ========== 立即激活附魔的方法 ==========
+    private static void handleEnchantmentSpeedImmediate(Player player, PlayerRoadState state, int currentTick,
+            int enchantLevel, boolean isOnRoad) {
         // 更新腾空状态
-        BlockPos belowPlayer = player.blockPosition().below();
-        updateAirborneState(player, isOnRoad, enchantLevel, belowPlayer);
+        updateAirborneState(player, state, isOnRoad, enchantLevel, belowPlayerKey(player));
 
         // 已知在道路上，直接激活附魔
-        int newLevel = enchantLevel;
-
-        Integer previousLevel = playerSpeedLevels.get(playerId);
-        Integer stableLevel = playerStableSpeedLevels.get(playerId);
-
-        if (stableLevel == null || stableLevel != newLevel) {
-            playerStableSpeedLevels.put(playerId, newLevel);
-        } else {
-            if (previousLevel == null || previousLevel != newLevel) {
-                handleSpeedEffect(player, previousLevel, newLevel);
-            }
-            playerSpeedLevels.put(playerId, newLevel);
-        }
+        updateStableSpeedLevel(player, state, enchantLevel);
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("【附魔立即激活】玩家={}, 等级={}",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("【附魔立即激活】玩家={}, 等级={}",
                     player.getName().getString(), enchantLevel);
         }
     }
 
     // ========== 事件监听 ==========
 
+    // 玩家 tick 分配探针（-Dqianmospeed.allocationProbe 开启）
+    private static final AllocationProbe TICK_PROBE = AllocationProbe.create("player_tick");
+
     @SubscribeEvent
     public static void onPlayerTick(TickEvent.PlayerTickEvent event) {
         if (event.phase != TickEvent.Phase.END)
@@ -665,88 +620,82 @@ public class BasicEventHandler {
         if (event.player.level().isClientSide())
             return;
 
-        Player player = event.player;
-        int currentTick = (int) player.level().getGameTime();
-        UUID playerId = player.getUUID();
+        long probe = TICK_PROBE.begin();
+        tickPlayer(event.player);
+        TICK_PROBE.end(probe);
+    }
 
-        // 定期清理离线玩家的过期状态（防止内存泄漏）
-        if (currentTick - lastStaleCleanupTick > STALE_CLEANUP_INTERVAL) {
-            cleanupStaleEntries(player.level());
-            lastStaleCleanupTick = currentTick;
-        }
+    /**
+     * 单个玩家的 tick 逻辑（命中判定记忆时整条路径不分配对象）
+     */
+    static void tickPlayer(Player player) {
+        int currentTick = (int) player.level().getGameTime();
+        PlayerRoadState state = getState(player);
+        CheckScheduler.sampleMotion(player, state);
 
         // ========== ⭐⭐⭐ 先检测道路，再决定哪个加速生效 ⭐⭐⭐ ==========
 
-        // 1. 先检测是否在道路上 - 只检测脚下
-        boolean isOnRoad = checkRoadWithMultiLayer(player.level(), player);
+        // 1. 先检测是否在道路上 - 只检测脚下（通常已由 RoadBatchEvaluator 在本 tick 开始时算好）
+        boolean isOnRoad = checkRoadWithMultiLayer(player.level(), player, state);
 
         // 1.5. 检查 RoadWeaver 道路类型
         // 注意：不在道路上时保留上次的 RW Context，使腾空期间 RW 加成不丢失
         if (isOnRoad && AdvancedRoadHandler.isAvailable() && player.level() instanceof ServerLevel) {
-            AdvancedRoadHandler.RoadContext rwContext = AdvancedRoadHandler.getRoadContext(
-                    (ServerLevel) player.level(), player.blockPosition());
-            playerRWContext.put(playerId, rwContext);
-        }
-        // 不移除 playerRWContext：腾空维持期间需要保留上次的 RW 道路级别
-
-        // 2. 检查玩家是否穿着附魔靴子
-        boolean hasEnchantmentBoots = false;
-        int enchantmentLevel = 0;
-        ItemStack boots = player.getInventory().getArmor(0);
-        if (!boots.isEmpty()) {
-            Map<Enchantment, Integer> enchantments = EnchantmentHelper.getEnchantments(boots);
-            Enchantment travelBlessingsEnchantment = ForgeRegistries.ENCHANTMENTS.getValue(
-                    new net.minecraft.resources.ResourceLocation(QianmoSpeedMod.MODID, "travel_blessings"));
-            if (travelBlessingsEnchantment != null && enchantments.containsKey(travelBlessingsEnchantment)) {
-                hasEnchantmentBoots = true;
-                enchantmentLevel = enchantments.get(travelBlessingsEnchantment);
-            }
+            state.rwContext = RoadBatchEvaluator.getRoadContext((ServerLevel) player.level(), player, state);
         }
+        // 不重置 rwContext：腾空维持期间需要保留上次的 RW 道路级别
+
+        // 2. 检查玩家是否穿着附魔靴子（使用缓存的等级）
+        int enchantmentLevel = getTravelBlessingsLevel(player, state);
+        boolean hasEnchantmentBoots = enchantmentLevel > 0;
 
         // 3. 处理附魔加速（如果穿着附魔靴子且在道路上）
         if (hasEnchantmentBoots && isOnRoad) {
             // 附魔应该立即激活，强制移除常驻加速
-            if (playerPermanentSpeedActive.getOrDefault(playerId, false)) {
+            if (state.permanentSpeedActive) {
                 removePermanentSpeedEffect(player);
-                playerPermanentSpeedActive.put(playerId, false);
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("【附魔优先】道路上检测到附魔靴子，移除常驻加速");
+                state.permanentSpeedActive = false;
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("【附魔优先】道路上检测到附魔靴子，移除常驻加速");
                 }
             }
 
             // 调用新方法，直接应用附魔加速
-            handleEnchantmentSpeedImmediate(player, currentTick, enchantmentLevel, isOnRoad);
+            handleEnchantmentSpeedImmediate(player, state, currentTick, enchantmentLevel, isOnRoad);
         } else {
             // 4. 没有附魔或不在道路上，正常处理附魔（可能维持或移除）
-            boolean hasEnchantment = checkAndHandleEnchantmentSpeed(player, currentTick, isOnRoad);
+            boolean hasEnchantment = checkAndHandleEnchantmentSpeed(player, state, currentTick, isOnRoad);
 
             // 5. 只有完全没有附魔时，才处理常驻加速
             if (!hasEnchantment) {
-                handlePermanentRoadSpeed(player, currentTick);
+                handlePermanentRoadSpeed(player, state, currentTick);
             } else {
                 // 附魔激活时，强制移除常驻加速
-                if (playerPermanentSpeedActive.getOrDefault(playerId, false)) {
+                if (state.permanentSpeedActive) {
                     removePermanentSpeedEffect(player);
-                    playerPermanentSpeedActive.put(playerId, false);
-                    if (SpeedModConfig.isDebugMessagesEnabled()) {
-                        QianmoSpeedMod.LOGGER.debug("【附魔优先】强制移除常驻加速: 玩家={}", player.getName().getString());
+                    state.permanentSpeedActive = false;
+                    if (DebugTrace.enabled()) {
+                        DebugTrace.log("【附魔优先】强制移除常驻加速: 玩家={}", player.getName().getString());
                     }
                 }
             }
         }
 
-        // 调试日志（每200 tick）
-        if (SpeedModConfig.isDebugMessagesEnabled() && currentTick % 200 == 0) {
-            QianmoSpeedMod.LOGGER.debug("【状态】玩家={}, 附魔激活={}, 常驻激活={}",
+        // 调试日志（按玩家采样）
+        if (DebugTrace.samplePlayer(player, currentTick)) {
+            DebugTrace.log("【状态】玩家={}, 附魔激活={}, 常驻激活={}",
                     player.getName().getString(),
-                    playerSpeedLevels.getOrDefault(playerId, 0) > 0,
-                    playerPermanentSpeedActive.getOrDefault(playerId, false));
+                    state.speedLevel > 0,
+                    state.permanentSpeedActive);
         }
     }
 
     @SubscribeEvent
     public static void onPlayerLogin(PlayerEvent.PlayerLoggedInEvent event) {
         cleanupPlayerData(event.getEntity());
+        PlayerRoadState state = new PlayerRoadState();
+        playerStates.put(event.getEntity().getUUID(), state);
+        refreshTravelBlessingsLevel(state, event.getEntity().getItemBySlot(EquipmentSlot.FEET));
 
         Player player = event.getEntity();
         if (player instanceof ServerPlayer && SpeedModConfig.isLoginMessagesEnabled()) {
@@ -813,23 +762,25 @@ public class BasicEventHandler {
     @SubscribeEvent
     public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
         cleanupPlayerData(event.getEntity());
-        if (SpeedModConfig.isRoadWeaverIntegrationEnabled() && QianmoSpeedMod.isRoadModLoaded("roadweaver")) {
-            AdvancedRoadHandler.clearCache(null);
-            RoadWeaverH2Helper.clearAllCache();
-        }
+        playerStates.remove(event.getEntity().getUUID());
+        // RoadWeaver 快照按源文件修改时间和有效期在后台刷新，登出不需要标记过期
     }
 
     @SubscribeEvent
     public static void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
         cleanupPlayerData(event.getEntity());
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("玩家重生: {}", event.getEntity().getName().getString());
+        Player player = event.getEntity();
+        refreshTravelBlessingsLevel(getState(player), player.getItemBySlot(EquipmentSlot.FEET));
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("玩家重生: {}", event.getEntity().getName().getString());
         }
     }
 
     @SubscribeEvent
     public static void onPlayerChangeDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
         cleanupPlayerData(event.getEntity());
+        Player player = event.getEntity();
+        refreshTravelBlessingsLevel(getState(player), player.getItemBySlot(EquipmentSlot.FEET));
         if (SpeedModConfig.isRoadWeaverIntegrationEnabled() && QianmoSpeedMod.isRoadModLoaded("roadweaver")) {
             if (event.getEntity().level() instanceof ServerLevel serverLevel) {
                 AdvancedRoadHandler.clearCache(serverLevel);
@@ -841,23 +792,19 @@ public class BasicEventHandler {
     @SubscribeEvent
     public static void onEquipmentChange(LivingEquipmentChangeEvent event) {
         if (event.getEntity() instanceof Player player && event.getSlot() == EquipmentSlot.FEET) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("【装备变化】{} 更换了靴子，强制移除所有速度效果", player.getName().getString());
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("【装备变化】{} 更换了靴子，强制移除所有速度效果", player.getName().getString());
             }
 
-            UUID playerId = player.getUUID();
-
             // 1. 必须先移除实际的速度效果！
             removeSpeedAttribute(player);
             removePermanentSpeedEffect(player);
 
-            // 2. 再清理内存状态
-            playerSpeedLevels.remove(playerId);
-            playerStableSpeedLevels.remove(playerId);
-            playerPermanentSpeedActive.remove(playerId);
-            lastEnchantmentCheckTicks.remove(playerId);
-            lastPermanentCheckTicks.remove(playerId);
-            playerAirborneStates.remove(playerId);
+            // 2. 再清理内存状态，并按新靴子刷新附魔等级缓存
+            if (player.level().isClientSide()) return;
+            PlayerRoadState state = getState(player);
+            state.resetSpeedState();
+            refreshTravelBlessingsLevel(state, event.getTo());
         }
     }
 
@@ -865,8 +812,8 @@ public class BasicEventHandler {
     public static void onPlayerDeath(PlayerEvent.Clone event) {
         if (event.isWasDeath()) {
             cleanupPlayerData(event.getOriginal());
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("玩家死亡: {}", event.getOriginal().getName().getString());
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("玩家死亡: {}", event.getOriginal().getName().getString());
             }
         }
     }
@@ -0,0 +1,194 @@
+package com.example.qianmospeed.event;
+
+import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.road.RoadDetectionFactory;
+import com.example.qianmospeed.road.RoadRunIndex;
+import com.example.qianmospeed.util.DebugTrace;
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.Level;
+
+/**
+ * 间隔检查调度
+ * <p>
+ * 每个玩家按 UUID 哈希得到一个相位，间隔检查落在 (tick + 相位) % 间隔 == 0 的 tick 上，
+ * 同时登录（或重启后一起进入）的玩家不会挤在同一个 tick。每 tick 完整评估的玩家数受
+ * {@link SpeedModConfig#getMaxEvaluationsPerTick()} 限制（同一玩家同一 tick 的常驻与附魔检查只占一个名额），
+ * 超出的顺延到下一 tick；首次检查（登录、重生后）和已逾期一整个间隔的玩家不受预算限制，避免排在后面的玩家一直被推迟。
+ * <p>
+ * 自适应模式下每个玩家的间隔 = 到道路边界的剩余格数 / 水平速度（限制在配置的最小/最大值之间）：
+ * 剩余格数在每次评估时沿四个水平方向统计，只计运动方向一侧，笔直长路上间隔放宽；
+ * 两个轴向都很宽（路口、广场）或不在道路上时按固定的小距离计算，间隔收紧。
+ * <p>
+ * 只在服务器线程上使用。
+ */
+final class CheckScheduler {
+    private static int budgetTick = PlayerRoadState.NEVER;
+    private static int usedThisTick = 0;
+    private static int deferredThisTick = 0;
+
+    // 统计道路剩余长度的上限（格）
+    private static final int MAX_MARGIN = 64;
+    // 不在道路上、或处在路口时假定的边界距离（格）
+    private static final int TIGHT_MARGIN = 2;
+    // 速度平滑：加速立即生效，减速逐 tick 衰减
+    private static final double VELOCITY_DECAY = 0.8;
+    // 低于该速度视为静止（方块/tick）
+    private static final double IDLE_SPEED = 0.01;
+
+    // 统计剩余长度时复用的目标方块位置
+    private static final BlockPos.MutableBlockPos MARGIN_TARGET = new BlockPos.MutableBlockPos();
+
+    private CheckScheduler() {
+    }
+
+    // ==================== 间隔 ====================
+
+    /**
+     * 玩家当前的检查间隔（未启用自适应模式时为全局配置）
+     */
+    static int intervalFor(PlayerRoadState state) {
+        if (!SpeedModConfig.isAdaptiveCheckIntervalEnabled()) {
+            return SpeedModConfig.getCheckInterval();
+        }
+
+        int min = SpeedModConfig.getMinCheckInterval();
+        int max = SpeedModConfig.getMaxCheckInterval();
+
+        // 各轴到运动方向一侧边界所需的 tick 数，取较小者
+        double ticks = Double.MAX_VALUE;
+        double vx = Math.abs(state.velocityX);
+        if (vx > IDLE_SPEED) {
+            ticks = Math.min(ticks, (state.velocityX > 0 ? state.marginPosX : state.marginNegX) / vx);
+        }
+        double vz = Math.abs(state.velocityZ);
+        if (vz > IDLE_SPEED) {
+            ticks = Math.min(ticks, (state.velocityZ > 0 ? state.marginPosZ : state.marginNegZ) / vz);
+        }
+
+        if (ticks >= max) return max;
+        return Math.max(min, (int) ticks);
+    }
+
+    /**
+     * 每 tick 采样一次玩家的水平位移
+     */
+    static void sampleMotion(Player player, PlayerRoadState state) {
+        double x = player.getX();
+        double z = player.getZ();
+        if (state.hasMotionSample) {
+            state.velocityX = smooth(state.velocityX, x - state.lastSampleX);
+            state.velocityZ = smooth(state.velocityZ, z - state.lastSampleZ);
+        } else {
+            state.velocityX = 0;
+            state.velocityZ = 0;
+            state.hasMotionSample = true;
+        }
+        state.lastSampleX = x;
+        state.lastSampleZ = z;
+    }
+
+    private static double smooth(double previous, double current) {
+        double decayed = previous * VELOCITY_DECAY;
+        return Math.abs(current) >= Math.abs(decayed) ? current : decayed;
+    }
+
+    /**
+     * 评估时记录脚下道路在四个方向上的剩余长度
+     */
+    static void refreshRoadMargins(Player player, PlayerRoadState state, boolean isOnRoad) {
+        if (!SpeedModConfig.isAdaptiveCheckIntervalEnabled()) return;
+
+        Level level = player.level();
+        // 骑乘时判定来自坐骑，按坐骑脚下的方块统计
+        VehicleRoadState vehicle = VehicleRoadHandler.getSharedState(player);
+        long targetKey = vehicle != null ? vehicle.lastTargetPos : state.lastTargetPos;
+
+        RoadRunIndex index = null;
+        BlockPos target = MARGIN_TARGET.set(targetKey);
+        if (isOnRoad && targetKey != Long.MAX_VALUE) {
+            index = RoadDetectionFactory.getRunIndex(level, target);
+        }
+
+        if (index == null) {
+            setMargins(state, TIGHT_MARGIN, TIGHT_MARGIN, TIGHT_MARGIN, TIGHT_MARGIN);
+            return;
+        }
+
+        int posX = index.countRun(level, target, true, true, MAX_MARGIN);
+        int negX = index.countRun(level, target, true, false, MAX_MARGIN);
+        int posZ = index.countRun(level, target, false, true, MAX_MARGIN);
+        int negZ = index.countRun(level, target, false, false, MAX_MARGIN);
+
+        // 两个轴向都比道路宽：路口或广场，行进方向随时可能改变
+        int roadWidth = SpeedModConfig.getMaxDirectionalLength();
+        if (posX + negX + 1 > roadWidth && posZ + negZ + 1 > roadWidth) {
+            setMargins(state, Math.min(posX, TIGHT_MARGIN), Math.min(negX, TIGHT_MARGIN),
+                    Math.min(posZ, TIGHT_MARGIN), Math.min(negZ, TIGHT_MARGIN));
+            return;
+        }
+
+        setMargins(state, posX, negX, posZ, negZ);
+    }
+
+    private static void setMargins(PlayerRoadState state, int posX, int negX, int posZ, int negZ) {
+        state.marginPosX = posX;
+        state.marginNegX = negX;
+        state.marginPosZ = posZ;
+        state.marginNegZ = negZ;
+    }
+
+    // ==================== 相位与预算 ====================
+
+    /**
+     * 玩家的检查相位（0 到 interval-1）
+     */
+    static int phaseOf(Player player, int interval) {
+        return Math.floorMod(HashCommon.mix(player.getUUID().hashCode()), interval);
+    }
+
+    /**
+     * 不晚于 currentTick 的最近一个相位 tick；作为"上次检查"记录后，下一次检查正好落在下一个相位 tick
+     */
+    static int alignToPhase(Player player, int currentTick, int interval) {
+        return currentTick - Math.floorMod(currentTick + phaseOf(player, interval), interval);
+    }
+
+    /**
+     * 判断本 tick 是否进行一次完整评估；玩家本 tick 首次进行时占用一个预算名额
+     *
+     * @param lastCheck 上次检查记录（{@link #alignToPhase} 的返回值或 {@link PlayerRoadState#NEVER}）
+     */
+    static boolean tryBegin(PlayerRoadState state, int lastCheck, int currentTick, int interval) {
+        if (lastCheck != PlayerRoadState.NEVER && currentTick - lastCheck < interval) {
+            return false;
+        }
+
+        if (budgetTick != currentTick) {
+            if (deferredThisTick > 0 && DebugTrace.enabled()) {
+                DebugTrace.log("【调度】tick {} 评估 {} 次，顺延 {} 次", budgetTick, usedThisTick,
+                        deferredThisTick);
+            }
+            budgetTick = currentTick;
+            usedThisTick = 0;
+            deferredThisTick = 0;
+        }
+
+        // 同一玩家本 tick 已占用过名额（常驻与附魔检查各调用一次）
+        if (state.budgetChargedTick == currentTick) {
+            return true;
+        }
+
+        int budget = SpeedModConfig.getMaxEvaluationsPerTick();
+        boolean exempt = lastCheck == PlayerRoadState.NEVER || currentTick - lastCheck >= interval * 2;
+        if (budget > 0 && usedThisTick >= budget && !exempt) {
+            deferredThisTick++;
+            return false;
+        }
+
+        usedThisTick++;
+        state.budgetChargedTick = currentTick;
+        return true;
+    }
+}
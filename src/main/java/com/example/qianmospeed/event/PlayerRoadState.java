@@ -0,0 +1,147 @@
+package com.example.qianmospeed.event;
+
+import com.example.qianmospeed.road.RoadDetectionFactory;
+import net.minecraft.world.level.Level;
+
+/**
+ * 单个玩家的道路加速状态
+ * <p>
+ * 登录时创建、登出时移除，tick 中只需一次查找，所有字段均为原始类型或枚举，不产生装箱。
+ */
+final class PlayerRoadState {
+    /** 尚未检查过 */
+    static final int NEVER = Integer.MIN_VALUE;
+
+    // ========== 独立的间隔追踪 ==========
+    int lastEnchantmentCheckTick = NEVER;
+    int lastPermanentCheckTick = NEVER;
+    // 最近一次占用每 tick 评估预算的 tick（同一 tick 内只占一次）
+    int budgetChargedTick = NEVER;
+
+    // ========== 靴子附魔 ==========
+    // 旅途祝福等级缓存：只在登录、装备变化、重生、换维度时刷新
+    int travelBlessingsLevel = 0;
+    boolean travelBlessingsKnown = false;
+
+    // ========== 脚下道路判定记忆 ==========
+    // 上次检测的目标方块（BlockPos.asLong）、结果和 tick；是否仍有效以共享判定缓存中该方块的已知位为准
+    long lastTargetPos = Long.MAX_VALUE;
+    boolean lastRoadVerdict = false;
+    int lastRoadCheckTick = NEVER;
+
+    // ========== 自适应检查间隔 ==========
+    // 水平速度（方块/tick，按 tick 采样并平滑）
+    double lastSampleX;
+    double lastSampleZ;
+    boolean hasMotionSample = false;
+    double velocityX;
+    double velocityZ;
+    // 上次评估时脚下道路在四个水平方向上的剩余长度（+X, -X, +Z, -Z）
+    int marginPosX;
+    int marginNegX;
+    int marginPosZ;
+    int marginNegZ;
+
+    // ========== 批量评估结果 ==========
+    // RoadBatchEvaluator 写入的 RoadWeaver 道路类型，按批次号和玩家方块位置校验
+    AdvancedRoadHandler.RoadContext batchedContext = AdvancedRoadHandler.RoadContext.NONE;
+    long batchedContextPos;
+    int batchedContextBatch = NEVER;
+
+    // ========== 加速状态 ==========
+    int speedLevel = 0;
+    int stableSpeedLevel = 0;
+    boolean permanentSpeedActive = false;
+    // RoadWeaver 道路类型（腾空维持期间保留上次的值）
+    AdvancedRoadHandler.RoadContext rwContext = AdvancedRoadHandler.RoadContext.NONE;
+
+    // ========== 腾空状态 ==========
+    boolean airborne = false;
+    boolean wasOnRoad;
+    int roadLevel;
+    long airborneStartTime;
+    long takeoffPosition;
+    int consecutiveAirborneTicks;
+    int consecutiveGroundTicks;
+
+    // 成就追踪：是否已授予"健步如飞"（重生/换维度不重置）
+    boolean grantedFirstStep = false;
+
+    // ========== 腾空状态操作 ==========
+
+    void startAirborne(boolean wasOnRoad, int roadLevel, long takeoffPos) {
+        this.airborne = true;
+        this.wasOnRoad = wasOnRoad;
+        this.roadLevel = roadLevel;
+        this.airborneStartTime = System.currentTimeMillis();
+        this.takeoffPosition = takeoffPos;
+        this.consecutiveAirborneTicks = 0;
+        this.consecutiveGroundTicks = 0;
+    }
+
+    /**
+     * 记住的判定是否仍可直接使用
+     */
+    boolean isRoadVerdictValid(Level level, long targetPos, int tick, int maxAge) {
+        return targetPos == lastTargetPos
+                && lastRoadCheckTick != NEVER
+                && tick - lastRoadCheckTick < maxAge
+                && RoadDetectionFactory.isVerdictCached(level, targetPos, lastRoadVerdict);
+    }
+
+    void rememberRoadVerdict(long targetPos, boolean isRoad, int tick) {
+        lastTargetPos = targetPos;
+        lastRoadVerdict = isRoad;
+        lastRoadCheckTick = tick;
+    }
+
+    void forgetRoadVerdict() {
+        lastRoadCheckTick = NEVER;
+    }
+
+    void endAirborne() {
+        airborne = false;
+    }
+
+    void incrementAirborneTick() {
+        consecutiveAirborneTicks++;
+        consecutiveGroundTicks = 0;
+    }
+
+    void incrementGroundTick() {
+        consecutiveGroundTicks++;
+    }
+
+    boolean isAirborneValid() {
+        return consecutiveAirborneTicks <= 60; // 3秒
+    }
+
+    boolean shouldEndAirborne() {
+        return consecutiveGroundTicks >= 2; // 0.1秒
+    }
+
+    // ========== 重置 ==========
+
+    /**
+     * 重置加速相关状态（更换靴子时）
+     */
+    void resetSpeedState() {
+        lastEnchantmentCheckTick = NEVER;
+        lastPermanentCheckTick = NEVER;
+        speedLevel = 0;
+        stableSpeedLevel = 0;
+        permanentSpeedActive = false;
+        airborne = false;
+    }
+
+    /**
+     * 重置全部会话状态（重生、换维度、死亡），保留成就标记
+     */
+    void reset() {
+        resetSpeedState();
+        rwContext = AdvancedRoadHandler.RoadContext.NONE;
+        forgetRoadVerdict();
+        batchedContextBatch = NEVER;
+        hasMotionSample = false;
+    }
+}
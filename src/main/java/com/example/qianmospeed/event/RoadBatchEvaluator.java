@@ -0,0 +1,169 @@
+package com.example.qianmospeed.event;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.road.RoadDetectionFactory;
+import com.example.qianmospeed.util.AllocationProbe;
+import com.example.qianmospeed.util.DebugTrace;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.List;
+
+/**
+ * 全服批量道路评估
+ * <p>
+ * 每个服务器 tick 开始时收集各维度在线玩家脚下的目标方块，去重后按区块排序逐个检测一次，
+ * 结果写回各玩家的 {@link PlayerRoadState}；同一方块上的多名玩家（主城、车站、同一条路上）
+ * 只付一次检测和一次 RoadWeaver 查询的开销。玩家 tick 中的逻辑不变，命中判定记忆即可。
+ * 骑乘生物坐骑的玩家改由 {@link VehicleRoadHandler} 按坐骑评估，同一坐骑的乘客共用一次结果。
+ * <p>
+ * 所有缓冲区在服务器线程上复用。
+ */
+@Mod.EventBusSubscriber(modid = QianmoSpeedMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class RoadBatchEvaluator {
+    private static final byte PENDING = -1;
+
+    // 批次号：每个服务器 tick 递增，用于校验玩家状态中的批量结果是否属于本 tick
+    private static int batchId = 0;
+
+    // ========== 复用缓冲区 ==========
+    private static final Long2ByteOpenHashMap verdicts = new Long2ByteOpenHashMap();
+    private static final Long2ObjectOpenHashMap<AdvancedRoadHandler.RoadContext> contexts =
+            new Long2ObjectOpenHashMap<>();
+    private static final LongArrayList pending = new LongArrayList();
+    private static final BlockPos.MutableBlockPos targetPos = new BlockPos.MutableBlockPos();
+
+    // 批量阶段分配探针（-Dqianmospeed.allocationProbe 开启）
+    private static final AllocationProbe BATCH_PROBE = AllocationProbe.create("road_batch");
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.START)
+            return;
+
+        long probe = BATCH_PROBE.begin();
+        batchId++;
+        for (ServerLevel level : event.getServer().getAllLevels()) {
+            List<ServerPlayer> players = level.players();
+            if (!players.isEmpty()) {
+                evaluateLevel(level, players);
+            }
+        }
+        VehicleRoadHandler.sweep(batchId);
+        BATCH_PROBE.end(probe);
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        VehicleRoadHandler.clearAll();
+    }
+
+    // ==================== 批量评估 ====================
+
+    private static void evaluateLevel(ServerLevel level, List<ServerPlayer> players) {
+        verdicts.clear();
+        pending.clear();
+
+        // 0. 坐骑（每个坐骑一次，乘客共用）
+        VehicleRoadHandler.evaluateLevel(level, players, batchId);
+
+        // 1. 收集判定记忆已失效的目标方块（去重）
+        int playerCount = players.size();
+        for (int p = 0; p < playerCount; p++) {
+            ServerPlayer player = players.get(p);
+            if (VehicleRoadHandler.getSharedState(player) != null) continue;
+            PlayerRoadState state = BasicEventHandler.getState(player);
+            long target = BasicEventHandler.getTargetBlockKey(player);
+            if (state.isRoadVerdictValid(level, target, player.tickCount,
+                    BasicEventHandler.ROAD_RECHECK_INTERVAL)) {
+                continue;
+            }
+            if (!verdicts.containsKey(target)) {
+                verdicts.put(target, PENDING);
+                pending.add(target);
+            }
+        }
+
+        // 2. 按区块排序后逐个检测（同一区块的方块连续访问）
+        if (!pending.isEmpty()) {
+            long[] targets = pending.elements();
+            int count = pending.size();
+            if (count > 1) {
+                LongArrays.quickSort(targets, 0, count, RoadBatchEvaluator::compareByChunk);
+            }
+            for (int i = 0; i < count; i++) {
+                long target = targets[i];
+                boolean isRoad = RoadDetectionFactory.isOnRoad(level, targetPos.set(target));
+                verdicts.put(target, isRoad ? (byte) 1 : (byte) 0);
+            }
+        }
+
+        // 3. 写回判定，并为道路上的玩家批量查询 RoadWeaver 道路类型
+        boolean rwAvailable = AdvancedRoadHandler.isAvailable();
+        contexts.clear();
+        for (int p = 0; p < playerCount; p++) {
+            ServerPlayer player = players.get(p);
+            if (VehicleRoadHandler.getSharedState(player) != null) continue;
+            PlayerRoadState state = BasicEventHandler.getState(player);
+            long target = BasicEventHandler.getTargetBlockKey(player);
+            byte verdict = verdicts.getOrDefault(target, PENDING);
+            if (verdict != PENDING) {
+                state.rememberRoadVerdict(target, verdict == 1, player.tickCount);
+            }
+
+            if (rwAvailable && state.lastTargetPos == target && state.lastRoadVerdict) {
+                BlockPos playerPos = player.blockPosition();
+                long posKey = playerPos.asLong();
+                AdvancedRoadHandler.RoadContext context = contexts.get(posKey);
+                if (context == null) {
+                    context = AdvancedRoadHandler.getRoadContext(level, playerPos);
+                    contexts.put(posKey, context);
+                }
+                state.batchedContext = context;
+                state.batchedContextPos = posKey;
+                state.batchedContextBatch = batchId;
+            }
+        }
+
+        if (DebugTrace.enabled() && level.getGameTime() % 200 == 0) {
+            DebugTrace.log("【批量评估】维度={}, 玩家={}, 检测方块={}, RW查询={}",
+                    level.dimension().location(), players.size(), pending.size(), contexts.size());
+        }
+    }
+
+    private static int compareByChunk(long a, long b) {
+        int cmp = Integer.compare(BlockPos.getX(a) >> 4, BlockPos.getX(b) >> 4);
+        if (cmp != 0) return cmp;
+        cmp = Integer.compare(BlockPos.getZ(a) >> 4, BlockPos.getZ(b) >> 4);
+        if (cmp != 0) return cmp;
+        return Long.compare(a, b);
+    }
+
+    // ==================== 结果读取 ====================
+
+    /**
+     * 玩家当前位置的 RoadWeaver 道路类型：本 tick 批量阶段已查询且玩家未移动时直接返回，否则单独查询
+     */
+    static AdvancedRoadHandler.RoadContext getRoadContext(ServerLevel level, Player player, PlayerRoadState state) {
+        VehicleRoadState vehicle = VehicleRoadHandler.getSharedState(player);
+        if (vehicle != null) {
+            return vehicle.rwContext;
+        }
+
+        BlockPos playerPos = player.blockPosition();
+        if (state.batchedContextBatch == batchId && state.batchedContextPos == playerPos.asLong()) {
+            return state.batchedContext;
+        }
+        return AdvancedRoadHandler.getRoadContext(level, playerPos);
+    }
+}
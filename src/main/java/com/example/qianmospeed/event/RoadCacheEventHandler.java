@@ -0,0 +1,121 @@
+package com.example.qianmospeed.event;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.road.RoadBlockIndex;
+import com.example.qianmospeed.road.RoadRunIndex;
+import com.example.qianmospeed.road.RoadSurfaceCache;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.level.ExplosionEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.level.PistonEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.List;
+
+/**
+ * 道路判定缓存维护
+ * <p>
+ * 方块放置/破坏/工具改造（铲出土径、锄地）/活塞推拉/爆炸时失效受影响的判定结果与连续长度行，
+ * 区块/世界卸载时淘汰对应区段。其余经 {@code level.setBlock} 带邻居更新的改动只处理新方块是道路方块的情况
+ * （{@code /setblock}、{@code /fill}、RoadWeaver 建路等）：红石、侦测器、流体扩散、作物生长这类频繁更新
+ * 不会改变道路方块分布，不应反复清空附近的判定。道路方块被非玩家改动移除、以及不发邻居更新的写入，
+ * 靠缓存的最长存活时间兜底（{@link RoadSurfaceCache#MAX_AGE_TICKS}）。
+ */
+@Mod.EventBusSubscriber(modid = QianmoSpeedMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class RoadCacheEventHandler {
+    // 活塞一次最多推动 12 个方块，加上活塞臂共 13 格
+    private static final int PISTON_REACH = 13;
+
+    // 活塞事件遍历用的可变坐标（只在服务器线程上使用）
+    private static final BlockPos.MutableBlockPos pistonCursor = new BlockPos.MutableBlockPos();
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+        if (event.getLevel() instanceof Level level) {
+            onBlockChanged(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onBlockBreak(BlockEvent.BreakEvent event) {
+        if (event.getLevel() instanceof Level level) {
+            onBlockChanged(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onToolModification(BlockEvent.BlockToolModificationEvent event) {
+        // 事件在改动前触发；模拟调用不会改动方块，被取消时多失效一次也无害
+        if (event.isSimulated()) return;
+        if (event.getLevel() instanceof Level level) {
+            onBlockChanged(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        // 事件只带新状态：新方块不是道路方块时跳过（一次身份哈希查询）
+        if (!RoadBlockIndex.has(event.getState().getBlock(), RoadBlockIndex.BASIC | RoadBlockIndex.ADVANCED)) return;
+        if (event.getLevel() instanceof Level level) {
+            onBlockChanged(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onPistonMoved(PistonEvent.Post event) {
+        if (!(event.getLevel() instanceof Level level) || level.isClientSide()) return;
+
+        // 活塞臂到推动范围末端的每一格都可能变化
+        Direction direction = event.getDirection();
+        BlockPos.MutableBlockPos cursor = pistonCursor.set(event.getPos());
+        for (int i = 0; i < PISTON_REACH; i++) {
+            onBlockChanged(level, cursor.move(direction));
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onExplosion(ExplosionEvent.Detonate event) {
+        List<BlockPos> affected = event.getAffectedBlocks();
+        if (affected.isEmpty()) return;
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (BlockPos pos : affected) {
+            RoadRunIndex.onBlockChanged(event.getLevel(), pos);
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxY = Math.max(maxY, pos.getY());
+            maxZ = Math.max(maxZ, pos.getZ());
+        }
+        RoadSurfaceCache.onBlocksChanged(event.getLevel(), minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getLevel() instanceof Level level) {
+            RoadSurfaceCache.onChunkUnload(level, event.getChunk().getPos());
+            RoadRunIndex.onChunkUnload(level, event.getChunk().getPos());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof Level level) {
+            RoadSurfaceCache.onLevelUnload(level);
+            RoadRunIndex.onLevelUnload(level);
+        }
+    }
+
+    private static void onBlockChanged(Level level, BlockPos pos) {
+        RoadSurfaceCache.onBlockChanged(level, pos);
+        RoadRunIndex.onBlockChanged(level, pos);
+    }
+}
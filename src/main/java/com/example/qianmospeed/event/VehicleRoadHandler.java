@@ -0,0 +1,166 @@
+package com.example.qianmospeed.event;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.road.RoadDetectionFactory;
+import com.example.qianmospeed.util.DebugTrace;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 坐骑道路加速
+ * <p>
+ * 批量评估阶段按坐骑（乘客所在实体链的根实体）去重，每个坐骑每 tick 只检测一次脚下道路，
+ * 结果写入 {@link VehicleRoadState}，乘客的道路检测直接共用该结果。加成以修饰器形式加在坐骑的
+ * MOVEMENT_SPEED 上，倍率取控制者（通常是骑手）的旅途祝福等级或常驻加速，RoadWeaver 倍率取较高者。
+ * <p>
+ * 只支持有移动速度属性的生物坐骑（马、骆驼、猪、炽足兽及模组生物）；船、矿车等非生物载具没有该属性，不做处理。
+ * 只在服务器线程上使用。
+ */
+final class VehicleRoadHandler {
+    private static final UUID VEHICLE_SPEED_MODIFIER_UUID = UUID
+            .nameUUIDFromBytes((QianmoSpeedMod.MODID + ":vehicle_road_speed_modifier").getBytes());
+
+    // 实体 ID -> 坐骑状态
+    private static final Int2ObjectOpenHashMap<VehicleRoadState> vehicles = new Int2ObjectOpenHashMap<>();
+    private static final BlockPos.MutableBlockPos targetPos = new BlockPos.MutableBlockPos();
+
+    private VehicleRoadHandler() {
+    }
+
+    // ==================== 批量评估 ====================
+
+    /**
+     * 评估指定维度中所有载有玩家的坐骑（每个坐骑一次）
+     */
+    static void evaluateLevel(ServerLevel level, List<ServerPlayer> players, int batchId) {
+        if (!SpeedModConfig.isVehicleRoadSpeedEnabled()) return;
+
+        for (int p = 0, n = players.size(); p < n; p++) {
+            ServerPlayer player = players.get(p);
+            if (!player.isPassenger()) continue;
+            if (!(player.getRootVehicle() instanceof LivingEntity vehicle)) continue;
+
+            VehicleRoadState state = vehicles.get(vehicle.getId());
+            if (state == null || state.vehicle != vehicle) {
+                state = new VehicleRoadState(vehicle);
+                vehicles.put(vehicle.getId(), state);
+            } else if (state.seenBatch == batchId) {
+                // 同一坐骑的其他乘客已经评估过
+                continue;
+            }
+            state.seenBatch = batchId;
+            evaluate(level, state);
+        }
+    }
+
+    private static void evaluate(ServerLevel level, VehicleRoadState state) {
+        LivingEntity vehicle = state.vehicle;
+
+        // 1. 脚下道路（跳跃离地时维持起跳前的结果）
+        if (vehicle.onGround() || vehicle.isInWater()) {
+            long target = BasicEventHandler.getTargetBlockKey(vehicle);
+            int tick = vehicle.tickCount;
+            if (!state.isRoadVerdictValid(level, target, tick, BasicEventHandler.ROAD_RECHECK_INTERVAL)) {
+                boolean isRoad = RoadDetectionFactory.isOnRoad(level, targetPos.set(target));
+                state.rememberRoadVerdict(target, isRoad, tick);
+            }
+            state.wasOnRoad = state.lastRoadVerdict;
+        }
+        boolean onRoad = state.wasOnRoad;
+
+        // 2. RoadWeaver 道路类型
+        if (onRoad && AdvancedRoadHandler.isAvailable()) {
+            state.rwContext = AdvancedRoadHandler.getRoadContext(level, vehicle.blockPosition());
+        } else if (!onRoad) {
+            state.rwContext = AdvancedRoadHandler.RoadContext.NONE;
+        }
+
+        // 3. 应用/移除坐骑加成
+        double multiplier = onRoad ? getMultiplier(vehicle, state) : 1.0;
+        AttributeInstance movementSpeed = vehicle.getAttribute(Attributes.MOVEMENT_SPEED);
+        if (movementSpeed == null) return;
+
+        if (multiplier > 1.0) {
+            boolean changed = BasicEventHandler.updateSpeedModifier(movementSpeed, VEHICLE_SPEED_MODIFIER_UUID,
+                    "VehicleRoadSpeedBonus", multiplier - 1.0);
+            if (changed && DebugTrace.enabled()) {
+                DebugTrace.log("【坐骑加速】{} 倍率={}, RW类型={}",
+                        vehicle.getName().getString(), multiplier, state.rwContext);
+            }
+        } else {
+            removeModifier(vehicle);
+        }
+    }
+
+    /**
+     * 坐骑倍率：控制者的旅途祝福等级优先，其次常驻加速；RoadWeaver 倍率取较高者
+     */
+    private static double getMultiplier(LivingEntity vehicle, VehicleRoadState state) {
+        if (!(vehicle.getControllingPassenger() instanceof Player rider)) return 1.0;
+
+        PlayerRoadState riderState = BasicEventHandler.getState(rider);
+        int enchantLevel = BasicEventHandler.getTravelBlessingsLevel(rider, riderState);
+
+        double base;
+        if (enchantLevel > 0) {
+            base = SpeedModConfig.getSpeedMultiplier(enchantLevel);
+        } else if (SpeedModConfig.isPermanentSpeedEnabled()) {
+            base = SpeedModConfig.getPermanentSpeedMultiplier();
+        } else {
+            return 1.0;
+        }
+        return Math.max(base, BasicEventHandler.getRoadWeaverMultiplier(state.rwContext));
+    }
+
+    /**
+     * 移除本批次未出现的坐骑（乘客下马、坐骑卸载或死亡）并撤销其加成；功能关闭时全部移除
+     */
+    static void sweep(int batchId) {
+        if (vehicles.isEmpty()) return;
+
+        boolean enabled = SpeedModConfig.isVehicleRoadSpeedEnabled();
+        ObjectIterator<VehicleRoadState> it = vehicles.values().iterator();
+        while (it.hasNext()) {
+            VehicleRoadState state = it.next();
+            if (!enabled || state.seenBatch != batchId || state.vehicle.isRemoved()) {
+                removeModifier(state.vehicle);
+                it.remove();
+            }
+        }
+    }
+
+    static void clearAll() {
+        vehicles.clear();
+    }
+
+    private static void removeModifier(LivingEntity vehicle) {
+        AttributeInstance movementSpeed = vehicle.getAttribute(Attributes.MOVEMENT_SPEED);
+        if (movementSpeed != null && movementSpeed.getModifier(VEHICLE_SPEED_MODIFIER_UUID) != null) {
+            BasicEventHandler.removeAttributeModifier(movementSpeed, VEHICLE_SPEED_MODIFIER_UUID);
+        }
+    }
+
+    // ==================== 乘客共用 ====================
+
+    /**
+     * 玩家所乘坐骑本 tick 的评估状态；未骑乘、坐骑不受支持或功能关闭时返回 null
+     */
+    static VehicleRoadState getSharedState(Player player) {
+        if (!player.isPassenger() || vehicles.isEmpty()) return null;
+        Entity root = player.getRootVehicle();
+        VehicleRoadState state = vehicles.get(root.getId());
+        return state != null && state.vehicle == root ? state : null;
+    }
+}
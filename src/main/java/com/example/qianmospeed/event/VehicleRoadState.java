@@ -0,0 +1,44 @@
+package com.example.qianmospeed.event;
+
+import com.example.qianmospeed.road.RoadDetectionFactory;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.Level;
+
+/**
+ * 单个坐骑的道路判定状态
+ * <p>
+ * 每个服务器 tick 只评估一次，坐骑上的所有乘客共用；坐骑不再载有玩家时移除。
+ */
+final class VehicleRoadState {
+    final LivingEntity vehicle;
+
+    // 最近一次出现在批量评估中的批次号
+    int seenBatch;
+
+    // ========== 脚下道路判定记忆（与 PlayerRoadState 相同的失效规则）==========
+    long lastTargetPos = Long.MAX_VALUE;
+    boolean lastRoadVerdict = false;
+    int lastRoadCheckTick = PlayerRoadState.NEVER;
+
+    // 离地（跳跃）前是否在道路上：离地期间维持加成
+    boolean wasOnRoad = false;
+
+    AdvancedRoadHandler.RoadContext rwContext = AdvancedRoadHandler.RoadContext.NONE;
+
+    VehicleRoadState(LivingEntity vehicle) {
+        this.vehicle = vehicle;
+    }
+
+    boolean isRoadVerdictValid(Level level, long targetPos, int tick, int maxAge) {
+        return targetPos == lastTargetPos
+                && lastRoadCheckTick != PlayerRoadState.NEVER
+                && tick - lastRoadCheckTick < maxAge
+                && RoadDetectionFactory.isVerdictCached(level, targetPos, lastRoadVerdict);
+    }
+
+    void rememberRoadVerdict(long targetPos, boolean isRoad, int tick) {
+        lastTargetPos = targetPos;
+        lastRoadVerdict = isRoad;
+        lastRoadCheckTick = tick;
+    }
+}
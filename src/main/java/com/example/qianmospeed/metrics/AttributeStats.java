@@ -0,0 +1,33 @@
+package com.example.qianmospeed.metrics;
+
+public class AttributeStats implements AttributeStatsMBean {
+    private static final long MIN_SAMPLE_INTERVAL = 1_000_000_000L;
+
+    private long lastCount = -1;
+    private long lastTime;
+    private double lastRate = 0;
+
+    @Override
+    public long getModifierUpdates() {
+        return ModMetrics.ATTRIBUTE_UPDATES.sum();
+    }
+
+    @Override
+    public synchronized double getModifierUpdatesPerSecond() {
+        long count = ModMetrics.ATTRIBUTE_UPDATES.sum();
+        long now = System.nanoTime();
+        if (lastCount < 0) {
+            // 首次读取只建立基准
+            lastCount = count;
+            lastTime = now;
+            return 0;
+        }
+        long elapsed = now - lastTime;
+        if (elapsed >= MIN_SAMPLE_INTERVAL) {
+            lastRate = (count - lastCount) * 1_000_000_000.0 / elapsed;
+            lastCount = count;
+            lastTime = now;
+        }
+        return lastRate;
+    }
+}
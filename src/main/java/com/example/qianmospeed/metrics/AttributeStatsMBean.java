@@ -0,0 +1,12 @@
+package com.example.qianmospeed.metrics;
+
+/**
+ * 速度修饰器改动统计（qianmospeed:type=Attributes）
+ */
+public interface AttributeStatsMBean {
+    /** 启动以来的改动次数（添加、替换数值或移除各计一次） */
+    long getModifierUpdates();
+
+    /** 距上次采样（至少间隔 1 秒）的平均每秒改动次数 */
+    double getModifierUpdatesPerSecond();
+}
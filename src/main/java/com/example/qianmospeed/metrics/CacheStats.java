@@ -0,0 +1,38 @@
+package com.example.qianmospeed.metrics;
+
+import com.example.qianmospeed.road.RoadSurfaceCache;
+
+public class CacheStats implements CacheStatsMBean {
+    private final RoadSurfaceCache cache;
+
+    public CacheStats(RoadSurfaceCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    @Override
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = cache.getHits();
+        long total = hits + cache.getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public int getSectionCount() {
+        return cache.getCachedSectionCount();
+    }
+}
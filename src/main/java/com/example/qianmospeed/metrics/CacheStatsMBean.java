@@ -0,0 +1,19 @@
+package com.example.qianmospeed.metrics;
+
+/**
+ * 单个道路判定缓存的统计（qianmospeed:type=Cache,name=&lt;缓存名&gt;）
+ */
+public interface CacheStatsMBean {
+    long getHits();
+
+    long getMisses();
+
+    /** 累计淘汰的区段数 */
+    long getEvictions();
+
+    /** 启动以来的命中率（0~1） */
+    double getHitRatio();
+
+    /** 当前缓存的区段数（每个区段约 1KB） */
+    int getSectionCount();
+}
@@ -0,0 +1,57 @@
+package com.example.qianmospeed.metrics;
+
+import com.example.qianmospeed.config.SpeedModConfig;
+
+public class DetectorStats implements DetectorStatsMBean {
+
+    @Override
+    public String getDetectionMode() {
+        return SpeedModConfig.getRoadDetectionMode().name();
+    }
+
+    @Override
+    public long getFactoryInvocations() {
+        return ModMetrics.FACTORY_INVOCATIONS.sum();
+    }
+
+    @Override
+    public long getFactoryDetections() {
+        return ModMetrics.FACTORY_DETECTIONS.sum();
+    }
+
+    @Override
+    public long getBasicInvocations() {
+        return ModMetrics.BASIC_INVOCATIONS.sum();
+    }
+
+    @Override
+    public long getEnhancedInvocations() {
+        return ModMetrics.ENHANCED_INVOCATIONS.sum();
+    }
+
+    @Override
+    public long getEnhancedNoDirectionInvocations() {
+        return ModMetrics.ENHANCED_NO_DIRECTION_INVOCATIONS.sum();
+    }
+
+    @Override
+    public long getHybridInvocations() {
+        return ModMetrics.HYBRID_INVOCATIONS.sum();
+    }
+
+    @Override
+    public long getSmartInvocations() {
+        return ModMetrics.SMART_INVOCATIONS.sum();
+    }
+
+    @Override
+    public long getBlockStateReads() {
+        return ModMetrics.BLOCK_STATE_READS.sum();
+    }
+
+    @Override
+    public double getBlockStateReadsPerDetection() {
+        long detections = ModMetrics.FACTORY_DETECTIONS.sum();
+        return detections == 0 ? 0 : (double) ModMetrics.BLOCK_STATE_READS.sum() / detections;
+    }
+}
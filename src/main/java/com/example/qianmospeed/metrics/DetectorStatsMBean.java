@@ -0,0 +1,29 @@
+package com.example.qianmospeed.metrics;
+
+/**
+ * 检测器统计（qianmospeed:type=Detectors），计数均为启动以来的累计值
+ */
+public interface DetectorStatsMBean {
+    /** 当前配置的检测模式 */
+    String getDetectionMode();
+
+    long getFactoryInvocations();
+
+    /** 未命中缓存、实际执行的检测次数 */
+    long getFactoryDetections();
+
+    long getBasicInvocations();
+
+    long getEnhancedInvocations();
+
+    long getEnhancedNoDirectionInvocations();
+
+    long getHybridInvocations();
+
+    long getSmartInvocations();
+
+    long getBlockStateReads();
+
+    /** 平均每次实际检测读取的方块状态数 */
+    double getBlockStateReadsPerDetection();
+}
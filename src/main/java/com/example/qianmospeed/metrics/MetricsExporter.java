@@ -0,0 +1,102 @@
+package com.example.qianmospeed.metrics;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.road.RoadSurfaceCache;
+import net.minecraftforge.event.server.ServerStartingEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 服务器启动时把统计注册为平台 JMX MBean（域 {@value #DOMAIN}），停止时注销
+ * <ul>
+ *   <li>{@code qianmospeed:type=Detectors} — 各检测器调用次数、方块状态读取次数</li>
+ *   <li>{@code qianmospeed:type=Cache,name=<缓存名>} — 每个判定缓存的命中/未命中/淘汰</li>
+ *   <li>{@code qianmospeed:type=RoadWeaver} — 快照年龄、加载耗时、保留条目数</li>
+ *   <li>{@code qianmospeed:type=Attributes} — 速度修饰器改动次数与每秒改动数</li>
+ * </ul>
+ * 判定缓存随 RoadDetectionFactory 类首次加载才创建，可能晚于服务器启动，创建时通过 {@link #onCacheCreated} 补注册。
+ */
+@Mod.EventBusSubscriber(modid = QianmoSpeedMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class MetricsExporter {
+    public static final String DOMAIN = "qianmospeed";
+
+    private static final List<ObjectName> registered = new ArrayList<>();
+    private static boolean active = false;
+
+    @SubscribeEvent
+    public static void onServerStarting(ServerStartingEvent event) {
+        register();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        unregister();
+    }
+
+    // ==================== 注册/注销 ====================
+
+    public static synchronized void register() {
+        if (active) return;
+        active = true;
+
+        registerBean("type=Detectors", new DetectorStats());
+        registerBean("type=RoadWeaver", new RoadWeaverStats());
+        registerBean("type=Attributes", new AttributeStats());
+        for (RoadSurfaceCache cache : RoadSurfaceCache.getInstances()) {
+            registerCache(cache);
+        }
+    }
+
+    public static synchronized void unregister() {
+        if (!active) return;
+        active = false;
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                QianmoSpeedMod.LOGGER.warn("注销 JMX 统计 {} 失败: {}", name, e.toString());
+            }
+        }
+        registered.clear();
+    }
+
+    /**
+     * 缓存实例创建时调用；导出已开启时立即注册
+     */
+    public static synchronized void onCacheCreated(RoadSurfaceCache cache) {
+        if (active) {
+            registerCache(cache);
+        }
+    }
+
+    private static void registerCache(RoadSurfaceCache cache) {
+        registerBean("type=Cache,name=" + ObjectName.quote(cache.getName()), new CacheStats(cache));
+    }
+
+    private static void registerBean(String properties, Object bean) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            // 同一 JVM 中重复启动服务器（单人游戏）时替换旧的注册
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(bean, name);
+            registered.add(name);
+        } catch (JMException e) {
+            QianmoSpeedMod.LOGGER.warn("注册 JMX 统计 {} 失败: {}", properties, e.toString());
+        }
+    }
+}
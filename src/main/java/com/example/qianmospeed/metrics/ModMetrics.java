@@ -0,0 +1,48 @@
+package com.example.qianmospeed.metrics;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 常开的累计计数器（启动以来），由 {@link MetricsExporter} 注册的 JMX MBean 读取
+ * <p>
+ * 计数在服务器线程上累加、在 JMX 线程上读取，统一使用 {@link LongAdder}：无竞争时一次 CAS，读取方不需要加锁。
+ * 与 {@link com.example.qianmospeed.util.TimingProfiler} 不同，这里只计数不计时，不需要开关。
+ */
+public final class ModMetrics {
+    // ==================== 检测器 ====================
+    /** RoadDetectionFactory.isOnRoad 调用次数（含命中缓存） */
+    public static final LongAdder FACTORY_INVOCATIONS = new LongAdder();
+    /** 未命中缓存、实际执行的检测次数 */
+    public static final LongAdder FACTORY_DETECTIONS = new LongAdder();
+    public static final LongAdder BASIC_INVOCATIONS = new LongAdder();
+    public static final LongAdder ENHANCED_INVOCATIONS = new LongAdder();
+    public static final LongAdder ENHANCED_NO_DIRECTION_INVOCATIONS = new LongAdder();
+    public static final LongAdder HYBRID_INVOCATIONS = new LongAdder();
+    public static final LongAdder SMART_INVOCATIONS = new LongAdder();
+
+    /** 检测过程中读取的方块状态数（连续长度索引按整行读取，每行计 16 次） */
+    public static final LongAdder BLOCK_STATE_READS = new LongAdder();
+
+    // ==================== 属性 ====================
+    /** 速度修饰器实际改动次数（添加、替换数值或移除各计一次，玩家与坐骑合计） */
+    public static final LongAdder ATTRIBUTE_UPDATES = new LongAdder();
+
+    // ==================== RoadWeaver ====================
+    /** 后台快照加载完成次数 */
+    public static final LongAdder ROADWEAVER_LOADS = new LongAdder();
+
+    private ModMetrics() {
+    }
+
+    /**
+     * 读取方块状态并计数（检测器内统一通过这里读取）
+     */
+    public static BlockState readBlockState(Level level, BlockPos pos) {
+        BLOCK_STATE_READS.increment();
+        return level.getBlockState(pos);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.qianmospeed.metrics;
+
+import com.example.qianmospeed.util.RoadWeaverH2Helper;
+
+public class RoadWeaverStats implements RoadWeaverStatsMBean {
+
+    @Override
+    public int getDimensionCount() {
+        return RoadWeaverH2Helper.getSnapshotStats().dimensions();
+    }
+
+    @Override
+    public long getSnapshotAgeSeconds() {
+        RoadWeaverH2Helper.SnapshotStats stats = RoadWeaverH2Helper.getSnapshotStats();
+        if (stats.dimensions() == 0) return -1;
+        return (System.currentTimeMillis() - stats.oldestUpdateTime()) / 1000;
+    }
+
+    @Override
+    public double getLastLoadMillis() {
+        long nanos = RoadWeaverH2Helper.getSnapshotStats().slowestLoadNanos();
+        return nanos < 0 ? -1 : nanos / 1_000_000.0;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return ModMetrics.ROADWEAVER_LOADS.sum();
+    }
+
+    @Override
+    public long getPlannedChunkCount() {
+        return RoadWeaverH2Helper.getSnapshotStats().plannedChunks();
+    }
+
+    @Override
+    public long getConnectionCount() {
+        return RoadWeaverH2Helper.getSnapshotStats().connections();
+    }
+
+    @Override
+    public long getRoadSegmentBlockCount() {
+        return RoadWeaverH2Helper.getSnapshotStats().roadSegmentBlocks();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.qianmospeed.metrics;
+
+/**
+ * RoadWeaver 数据快照统计（qianmospeed:type=RoadWeaver），多个维度时取汇总值
+ */
+public interface RoadWeaverStatsMBean {
+    /** 已加载快照的维度数 */
+    int getDimensionCount();
+
+    /** 最旧快照距今的秒数（没有快照时为 -1） */
+    long getSnapshotAgeSeconds();
+
+    /** 各维度最近一次加载耗时中的最大值（毫秒，尚未加载时为 -1） */
+    double getLastLoadMillis();
+
+    /** 启动以来完成的快照加载次数 */
+    long getLoadCount();
+
+    long getPlannedChunkCount();
+
+    long getConnectionCount();
+
+    long getRoadSegmentBlockCount();
+}
@@ -1,7 +1,9 @@
 package com.example.qianmospeed.road;
 
-import com.example.qianmospeed.QianmoSpeedMod;
 import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.metrics.ModMetrics;
+import com.example.qianmospeed.util.DebugTrace;
+import com.example.qianmospeed.util.TimingProfiler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
@@ -9,6 +11,7 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.registries.ForgeRegistries;
 
 public class BasicRoadDetector implements RoadDetectionFactory.IRoadDetector {
+    private static final TimingProfiler.Timer PROFILE = TimingProfiler.timer("detector.basic");
 
     @Override
     public boolean isOnRoad(Level level, BlockPos pos) {
@@ -37,19 +40,27 @@ public class BasicRoadDetector implements RoadDetectionFactory.IRoadDetector {
      * 核心检测方法：自定义所有参数
      */
     public boolean isOnRoad(Level level, BlockPos pos, int minLength, int maxLength, boolean aggressive) {
-        BlockState state = level.getBlockState(pos);
+        long start = PROFILE.begin();
+        ModMetrics.BASIC_INVOCATIONS.increment();
+        boolean result = detect(level, pos, minLength, maxLength, aggressive);
+        PROFILE.end(start);
+        return result;
+    }
+
+    private boolean detect(Level level, BlockPos pos, int minLength, int maxLength, boolean aggressive) {
+        BlockState state = ModMetrics.readBlockState(level, pos);
         Block block = state.getBlock();
 
         boolean isBasic = SpeedModConfig.isBasicRoadBlock(block);
-        String blockId = ForgeRegistries.BLOCKS.getKey(block).toString();
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("基础检测 - 方块: {}, 在基础列表: {}", blockId, isBasic);
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("基础检测 - 方块: {}, 在基础列表: {}",
+                    ForgeRegistries.BLOCKS.getKey(block), isBasic);
         }
 
         if (!isBasic) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("基础检测: 方块不在基础列表中，不通过");
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("基础检测: 方块不在基础列表中，不通过");
             }
             return false;
         }
@@ -68,8 +79,8 @@ public class BasicRoadDetector implements RoadDetectionFactory.IRoadDetector {
         int xLength = calculateDirectionalLength(level, pos, true, maxLength);
         int zLength = calculateDirectionalLength(level, pos, false, maxLength);
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("方向检测 - 位置: {}, X长度: {}, Z长度: {} (要求: 最小{}x{}, 最大{}x{})",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("方向检测 - 位置: {}, X长度: {}, Z长度: {} (要求: 最小{}x{}, 最大{}x{})",
                     pos, xLength, zLength, minLength, minLength, maxLength, maxLength);
         }
 
@@ -92,8 +103,8 @@ public class BasicRoadDetector implements RoadDetectionFactory.IRoadDetector {
 
         // 标准模式
         if (xLength > maxLength && zLength > maxLength) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("  判定: 广场/地板 (两个方向都超过最大值)");
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("  判定: 广场/地板 (两个方向都超过最大值)");
             }
             return false;
         }
@@ -102,14 +113,14 @@ public class BasicRoadDetector implements RoadDetectionFactory.IRoadDetector {
         boolean zValid = zLength >= minLength && zLength <= maxLength;
 
         if (xValid && zValid) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("  判定: 有效道路 (X有效={}, Z有效={})", xValid, zValid);
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("  判定: 有效道路 (X有效={}, Z有效={})", xValid, zValid);
             }
             return true;
         }
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("  判定: 非道路 (X={}, Z={})", xLength, zLength);
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("  判定: 非道路 (X={}, Z={})", xLength, zLength);
         }
         return false;
     }
@@ -122,25 +133,11 @@ public class BasicRoadDetector implements RoadDetectionFactory.IRoadDetector {
     }
 
     private int checkDirection(Level level, BlockPos startPos, boolean checkX, boolean positive, int maxLength) {
-        int length = 0;
-        int direction = positive ? 1 : -1;
-        int maxCheck = maxLength * 3;
-        BlockPos currentPos = startPos;
-
-        for (int i = 1; i <= maxCheck; i++) {
-            currentPos = checkX ? currentPos.offset(direction, 0, 0) : currentPos.offset(0, 0, direction);
-
-            if (!level.isLoaded(currentPos)) break;
-
-            BlockState state = level.getBlockState(currentPos);
-            if (!SpeedModConfig.isBasicRoadBlock(state.getBlock())) break;
-
-            length++;
-        }
-        return length;
+        // 连续长度索引按区段位运算统计，不再逐格读取方块状态
+        return RoadRunIndex.BASIC.countRun(level, startPos, checkX, positive, maxLength * 3);
     }
 
     public boolean isBasicRoadBlock(Level level, BlockPos pos) {
-        return SpeedModConfig.isBasicRoadBlock(level.getBlockState(pos).getBlock());
+        return SpeedModConfig.isBasicRoadBlock(ModMetrics.readBlockState(level, pos).getBlock());
     }
 }
\ No newline at end of file
@@ -1,47 +1,41 @@
 package com.example.qianmospeed.road;
 
-import com.example.qianmospeed.QianmoSpeedMod;
 import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.metrics.ModMetrics;
+import com.example.qianmospeed.util.DebugTrace;
+import com.example.qianmospeed.util.TimingProfiler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.registries.ForgeRegistries;
-import java.util.HashMap;
-import java.util.Map;
 
 public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector {
     private final BasicRoadDetector basicDetector = new BasicRoadDetector();
-    private final Map<BlockPos, Boolean> cache = new HashMap<>();
-    private static final int CACHE_SIZE = 500;
+    private static final TimingProfiler.Timer PROFILE = TimingProfiler.timer("detector.enhanced");
 
     @Override
     public boolean isOnRoad(Level level, BlockPos pos) {
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("========== EnhancedRoadDetector ==========");
-            QianmoSpeedMod.LOGGER.debug("位置: {}", pos);
-        }
+        long start = PROFILE.begin();
+        ModMetrics.ENHANCED_INVOCATIONS.increment();
+        boolean result = detect(level, pos);
+        PROFILE.end(start);
+        return result;
+    }
 
-        // 检查缓存
-        if (cache.containsKey(pos)) {
-            boolean cached = cache.get(pos);
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("使用缓存结果: {}", cached);
-            }
-            return cached;
+    private boolean detect(Level level, BlockPos pos) {
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("========== EnhancedRoadDetector ==========");
+            DebugTrace.log("位置: {}", pos);
         }
 
         // 1. 首先检查方块是否在高级列表中
         if (!isAdvancedRoadBlock(level, pos)) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
+            if (DebugTrace.enabled()) {
                 String blockId = getBlockId(level, pos);
-                QianmoSpeedMod.LOGGER.debug("方块 {} 不在高级道路列表中", blockId);
+                DebugTrace.log("方块 {} 不在高级道路列表中", blockId);
             }
-
-            // 更新缓存
-            if (cache.size() >= CACHE_SIZE) {
-                cache.clear();
-            }
-            cache.put(pos, false);
             return false;
         }
 
@@ -49,17 +43,11 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
         // 不能只靠方块列表，必须满足基础检测器的所有条件！
         boolean result = basicDetector.isOnRoad(level, pos);
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
+        if (DebugTrace.enabled()) {
             String blockId = getBlockId(level, pos);
-            QianmoSpeedMod.LOGGER.debug("方块ID: {}, 高级模式检测: {}", blockId, result);
-            QianmoSpeedMod.LOGGER.debug("==========================================");
-        }
-
-        // 更新缓存
-        if (cache.size() >= CACHE_SIZE) {
-            cache.clear();
+            DebugTrace.log("方块ID: {}, 高级模式检测: {}", blockId, result);
+            DebugTrace.log("==========================================");
         }
-        cache.put(pos, result);
 
         return result;
     }
@@ -68,8 +56,8 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
      * 检查是否是高级模式道路方块
      */
     private boolean isAdvancedRoadBlock(Level level, BlockPos pos) {
-        BlockState state = level.getBlockState(pos);
-        net.minecraft.world.level.block.Block block = state.getBlock();
+        BlockState state = ModMetrics.readBlockState(level, pos);
+        Block block = state.getBlock();
         return SpeedModConfig.isAdvancedRoadBlock(block);
     }
 
@@ -77,17 +65,17 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
      * 获取方块ID
      */
     private String getBlockId(Level level, BlockPos pos) {
-        BlockState state = level.getBlockState(pos);
+        BlockState state = ModMetrics.readBlockState(level, pos);
         return ForgeRegistries.BLOCKS.getKey(state.getBlock()).toString();
     }
 
     /**
-     * 清理缓存
+     * 清理缓存（检测器自身不缓存，清理的是 RoadDetectionFactory 的共享判定缓存）
      */
     public void clearCache() {
-        cache.clear();
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("EnhancedRoadDetector 缓存已清理");
+        RoadDetectionFactory.SURFACE_CACHE.clear();
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("EnhancedRoadDetector 缓存已清理");
         }
     }
 
@@ -127,7 +115,7 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
     /**
      * 检查是否是不完整方块
     private boolean isIncompleteBlock(Level level, BlockPos pos) {
-        BlockState state = level.getBlockState(pos);
+        BlockState state = ModMetrics.readBlockState(level, pos);
         String blockId = ForgeRegistries.BLOCKS.getKey(state.getBlock()).toString();
         return blockId.contains("slab") ||
                 blockId.contains("stairs") ||
@@ -160,13 +148,14 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
      * 检查是否形成线性道路
      */
     private boolean checkFormsLinearRoad(Level level, BlockPos pos) {
+        Block targetBlock = ModMetrics.readBlockState(level, pos).getBlock();
         int xLength = 1;
-        xLength += checkDirectionSameType(level, pos, true, true, getBlockId(level, pos));
-        xLength += checkDirectionSameType(level, pos, true, false, getBlockId(level, pos));
+        xLength += checkDirectionSameType(level, pos, true, true, targetBlock);
+        xLength += checkDirectionSameType(level, pos, true, false, targetBlock);
 
         int zLength = 1;
-        zLength += checkDirectionSameType(level, pos, false, true, getBlockId(level, pos));
-        zLength += checkDirectionSameType(level, pos, false, false, getBlockId(level, pos));
+        zLength += checkDirectionSameType(level, pos, false, true, targetBlock);
+        zLength += checkDirectionSameType(level, pos, false, false, targetBlock);
 
         int minLength = SpeedModConfig.getMinDirectionalLength();
         return xLength >= minLength || zLength >= minLength;
@@ -176,7 +165,7 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
      * 检查单个方向（相同类型方块）
      */
     private int checkDirectionSameType(Level level, BlockPos startPos, boolean checkX,
-            boolean positive, String targetBlockId) {
+            boolean positive, Block targetBlock) {
         int length = 0;
         int direction = positive ? 1 : -1;
         int maxCheck = SpeedModConfig.getMaxDirectionalLength() * 2;
@@ -194,10 +183,9 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
                 break;
             }
 
-            BlockState state = level.getBlockState(currentPos);
-            String blockId = ForgeRegistries.BLOCKS.getKey(state.getBlock()).toString();
+            BlockState state = ModMetrics.readBlockState(level, currentPos);
 
-            if (!blockId.equals(targetBlockId)) {
+            if (state.getBlock() != targetBlock) {
                 break;
             }
             length++;
@@ -209,52 +197,51 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
      * 路径方块严格检测
      */
     private boolean checkPathBlockStrict(Level level, BlockPos pos) {
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("  → 路径方块严格检查: 位置 {}", pos);
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("  → 路径方块严格检查: 位置 {}", pos);
         }
 
         int adjacentRoads = countAdjacentRoadBlocks(level, pos);
-        String blockId = getBlockId(level, pos);
-        boolean isDirtPath = blockId.contains("dirt_path");
+        boolean isDirtPath = ModMetrics.readBlockState(level, pos).is(Blocks.DIRT_PATH);
 
         if (isDirtPath) {
             if (adjacentRoads >= 2) {
                 boolean formsLine = checkFormsLinearRoad(level, pos);
                 if (formsLine) {
-                    if (SpeedModConfig.isDebugMessagesEnabled()) {
-                        QianmoSpeedMod.LOGGER.debug("  → 土径形成线性道路，通过");
+                    if (DebugTrace.enabled()) {
+                        DebugTrace.log("  → 土径形成线性道路，通过");
                     }
                     return true;
                 }
             }
             int surroundingRoads = countSurroundingRoadBlocks(level, pos);
             if (surroundingRoads >= 6) {
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("  → 土径被 {} 个道路方块包围，通过", surroundingRoads);
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("  → 土径被 {} 个道路方块包围，通过", surroundingRoads);
                 }
                 return true;
             }
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("  → 土径不满足条件（相邻={}, 形成线性={}），不通过",
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("  → 土径不满足条件（相邻={}, 形成线性={}），不通过",
                         adjacentRoads, checkFormsLinearRoad(level, pos));
             }
             return false;
         } else {
             if (adjacentRoads >= 2) {
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("  → 有 {} 个相邻道路方块（≥2），通过", adjacentRoads);
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("  → 有 {} 个相邻道路方块（≥2），通过", adjacentRoads);
                 }
                 return true;
             }
             int surroundingRoads = countSurroundingRoadBlocks(level, pos);
             if (surroundingRoads >= 6) {
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("  → 周围有 {} 个道路方块（≥6），通过", surroundingRoads);
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("  → 周围有 {} 个道路方块（≥6），通过", surroundingRoads);
                 }
                 return true;
             }
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("  → 周围道路方块不足（相邻={}, 周围={}），不通过",
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("  → 周围道路方块不足（相邻={}, 周围={}），不通过",
                         adjacentRoads, surroundingRoads);
             }
             return false;
@@ -265,28 +252,28 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
      * 自然方块严格检查
      */
     private boolean checkNaturalBlockStrict(Level level, BlockPos pos) {
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("  → 自然方块严格检查开始");
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("  → 自然方块严格检查开始");
         }
 
         int adjacentRoads = countAdjacentRoadBlocks(level, pos);
         if (adjacentRoads >= 4) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("  → 有 {} 个相邻道路方块（≥4），通过", adjacentRoads);
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("  → 有 {} 个相邻道路方块（≥4），通过", adjacentRoads);
             }
             return true;
         }
 
         int surroundingRoads = countSurroundingRoadBlocks(level, pos);
         if (surroundingRoads >= 8) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("  → 周围有 {} 个道路方块（≥8），通过", surroundingRoads);
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("  → 周围有 {} 个道路方块（≥8），通过", surroundingRoads);
             }
             return true;
         }
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("  → 不满足道路特征（相邻={}, 周围={}），不通过",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("  → 不满足道路特征（相邻={}, 周围={}），不通过",
                     adjacentRoads, surroundingRoads);
         }
         return false;
@@ -296,26 +283,26 @@ public class EnhancedRoadDetector implements RoadDetectionFactory.IRoadDetector
      * 检查标准方块
      */
     private boolean checkStandardBlock(Level level, BlockPos pos) {
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("标准方块检查开始: 位置 {}", pos);
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("标准方块检查开始: 位置 {}", pos);
         }
 
         int adjacentRoads = countAdjacentRoadBlocks(level, pos);
         if (adjacentRoads >= 2) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("标准方块检测: 有 {} 个相邻道路方块（≥2），通过", adjacentRoads);
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("标准方块检测: 有 {} 个相邻道路方块（≥2），通过", adjacentRoads);
             }
             return true;
         }
         int surroundingRoads = countSurroundingRoadBlocks(level, pos);
         if (surroundingRoads >= 6) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("标准方块检测: 周围有 {} 个道路方块（≥6），通过", surroundingRoads);
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("标准方块检测: 周围有 {} 个道路方块（≥6），通过", surroundingRoads);
             }
             return true;
         }
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("标准方块检测: 周围道路方块不足（相邻={}, 周围={}），不通过",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("标准方块检测: 周围道路方块不足（相邻={}, 周围={}），不通过",
                     adjacentRoads, surroundingRoads);
         }
         return false;
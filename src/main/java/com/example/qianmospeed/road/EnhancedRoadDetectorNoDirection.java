@@ -1,63 +1,61 @@
 package com.example.qianmospeed.road;
 
-import com.example.qianmospeed.QianmoSpeedMod;
 import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.metrics.ModMetrics;
+import com.example.qianmospeed.util.DebugTrace;
+import com.example.qianmospeed.util.TimingProfiler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraftforge.registries.ForgeRegistries;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 
 public class EnhancedRoadDetectorNoDirection implements RoadDetectionFactory.IRoadDetector {
 
     private final BasicRoadDetector basicDetector = new BasicRoadDetector();
-    private final Map<BlockPos, Boolean> simpleCache = new HashMap<>();
-    private static final int CACHE_SIZE = 500;
+    private static final TimingProfiler.Timer PROFILE = TimingProfiler.timer("detector.enhanced_no_direction");
 
     @Override
     public boolean isOnRoad(Level level, BlockPos pos) {
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("========== EnhancedRoadDetectorNoDirection ==========");
-            QianmoSpeedMod.LOGGER.debug("检查位置: {}", pos);
-        }
+        long start = PROFILE.begin();
+        ModMetrics.ENHANCED_NO_DIRECTION_INVOCATIONS.increment();
+        boolean result = detect(level, pos);
+        PROFILE.end(start);
+        return result;
+    }
 
-        if (simpleCache.containsKey(pos)) {
-            return simpleCache.get(pos);
+    private boolean detect(Level level, BlockPos pos) {
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("========== EnhancedRoadDetectorNoDirection ==========");
+            DebugTrace.log("检查位置: {}", pos);
         }
 
         // ========== ⭐⭐⭐ 第一步：基础检测 ⭐⭐⭐ ==========
         boolean basicResult = basicDetector.isOnRoad(level, pos, false);
 
         if (basicResult) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("基础检测通过，直接判定为道路");
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("基础检测通过，直接判定为道路");
             }
-            simpleCache.put(pos, true);
             return true;
         }
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("基础检测未通过，进行密度检查");
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("基础检测未通过，进行密度检查");
         }
 
         // ========== ⭐⭐⭐ 第二步：密度检查 ⭐⭐⭐ ==========
         DensityCheckResult densityResult = checkDensity(level, pos);
 
         if (!densityResult.passed) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("密度检查不通过: 高级方块数={}, 不同方块种类={}, 要求至少6个且至少2种",
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("密度检查不通过: 高级方块数={}, 不同方块种类={}, 要求至少6个且至少2种",
                         densityResult.count, densityResult.variety);
             }
-            simpleCache.put(pos, false);
             return false;
         }
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("密度检查通过: 高级方块数={}, 不同方块种类={}",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("密度检查通过: 高级方块数={}, 不同方块种类={}",
                     densityResult.count, densityResult.variety);
         }
 
@@ -69,21 +67,19 @@ public class EnhancedRoadDetectorNoDirection implements RoadDetectionFactory.IRo
         int maxLength = SpeedModConfig.getMaxDirectionalLength();
         int minLength = SpeedModConfig.getMinDirectionalLength();
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("高级检测数据 - X方向长度: {}, Z方向长度: {}, 周围道路方块: {}",
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("高级检测数据 - X方向长度: {}, Z方向长度: {}, 周围道路方块: {}",
                     xLength, zLength, surroundingCount);
         }
 
         // 规则1：最大长度约束
         if (xLength > maxLength && zLength > maxLength) {
             if (surroundingCount >= 6) {
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("规则1豁免：密集道路区域");
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("规则1豁免：密集道路区域");
                 }
-                simpleCache.put(pos, true);
                 return true;
             }
-            simpleCache.put(pos, false);
             return false;
         }
 
@@ -95,19 +91,14 @@ public class EnhancedRoadDetectorNoDirection implements RoadDetectionFactory.IRo
 
         boolean result = isLinearRoad || isSurroundedRoad;
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
+        if (DebugTrace.enabled()) {
             if (result) {
-                QianmoSpeedMod.LOGGER.debug("✓ 高级检测通过 (规则2={}, 规则3={})", isLinearRoad, isSurroundedRoad);
+                DebugTrace.log("✓ 高级检测通过 (规则2={}, 规则3={})", isLinearRoad, isSurroundedRoad);
             } else {
-                QianmoSpeedMod.LOGGER.debug("✗ 高级检测未通过");
+                DebugTrace.log("✗ 高级检测未通过");
             }
         }
 
-        if (simpleCache.size() >= CACHE_SIZE) {
-            simpleCache.clear();
-        }
-        simpleCache.put(pos, result);
-
         return result;
     }
 
@@ -116,7 +107,9 @@ public class EnhancedRoadDetectorNoDirection implements RoadDetectionFactory.IRo
      */
     private DensityCheckResult checkDensity(Level level, BlockPos center) {
         int count = 0;
-        Set<String> blockTypes = new HashSet<>();
+        // 3x3 区域最多 9 种方块，按身份比较即可，无需注册名字符串
+        Block[] blockTypes = new Block[9];
+        int variety = 0;
 
         for (int dx = -1; dx <= 1; dx++) {
             for (int dz = -1; dz <= 1; dz++) {
@@ -126,19 +119,27 @@ public class EnhancedRoadDetectorNoDirection implements RoadDetectionFactory.IRo
                 if (checkPos.getY() != center.getY())
                     continue;
 
-                if (isAdvancedRoadBlock(level, checkPos)) {
+                // 记录方块类型
+                Block block = ModMetrics.readBlockState(level, checkPos).getBlock();
+                if (SpeedModConfig.isAdvancedRoadBlock(block)) {
                     count++;
 
-                    // 记录方块类型
-                    BlockState state = level.getBlockState(checkPos);
-                    String blockId = ForgeRegistries.BLOCKS.getKey(state.getBlock()).toString();
-                    blockTypes.add(blockId);
+                    boolean seen = false;
+                    for (int i = 0; i < variety; i++) {
+                        if (blockTypes[i] == block) {
+                            seen = true;
+                            break;
+                        }
+                    }
+                    if (!seen) {
+                        blockTypes[variety++] = block;
+                    }
                 }
             }
         }
 
-        boolean passed = count >= 6 && blockTypes.size() >= 2;
-        return new DensityCheckResult(passed, count, blockTypes.size());
+        boolean passed = count >= 6 && variety >= 2;
+        return new DensityCheckResult(passed, count, variety);
     }
 
     /**
@@ -172,37 +173,8 @@ public class EnhancedRoadDetectorNoDirection implements RoadDetectionFactory.IRo
      * 检查单个方向上的连续道路
      */
     private int checkDirection(Level level, BlockPos startPos, boolean checkX, boolean positive) {
-        int length = 0;
-        int direction = positive ? 1 : -1;
         int maxCheck = SpeedModConfig.getMaxDirectionalLength() * 3;
-
-        BlockPos currentPos = startPos;
-        int startY = startPos.getY();
-
-        for (int i = 1; i <= maxCheck; i++) {
-            if (checkX) {
-                currentPos = currentPos.offset(direction, 0, 0);
-            } else {
-                currentPos = currentPos.offset(0, 0, direction);
-            }
-
-            if (!level.isLoaded(currentPos)) {
-                break;
-            }
-
-            // 只检查同一Y高度
-            if (Math.abs(currentPos.getY() - startY) > 1) {
-                break;
-            }
-
-            if (!isAdvancedRoadBlock(level, currentPos)) {
-                break;
-            }
-
-            length++;
-        }
-
-        return length;
+        return RoadRunIndex.ADVANCED.countRun(level, startPos, checkX, positive, maxCheck);
     }
 
     /**
@@ -228,18 +200,18 @@ public class EnhancedRoadDetectorNoDirection implements RoadDetectionFactory.IRo
      * 检查是否是高级模式道路方块
      */
     private boolean isAdvancedRoadBlock(Level level, BlockPos pos) {
-        BlockState state = level.getBlockState(pos);
+        BlockState state = ModMetrics.readBlockState(level, pos);
         Block block = state.getBlock();
         return SpeedModConfig.isAdvancedRoadBlock(block);
     }
 
     /**
-     * 清理缓存
+     * 清理缓存（检测器自身不缓存，清理的是 RoadDetectionFactory 的共享判定缓存）
      */
     public void clearCache() {
-        simpleCache.clear();
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("EnhancedRoadDetectorNoDirection 缓存已清理");
+        RoadDetectionFactory.SURFACE_CACHE.clear();
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("EnhancedRoadDetectorNoDirection 缓存已清理");
         }
     }
 }
\ No newline at end of file
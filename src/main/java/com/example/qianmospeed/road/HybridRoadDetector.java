@@ -1,16 +1,14 @@
 package com.example.qianmospeed.road;
 
-import com.example.qianmospeed.QianmoSpeedMod;
-import com.example.qianmospeed.config.SpeedModConfig;
 import com.example.qianmospeed.event.AdvancedRoadHandler;
+import com.example.qianmospeed.metrics.ModMetrics;
+import com.example.qianmospeed.util.DebugTrace;
+import com.example.qianmospeed.util.TimingProfiler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * 混合道路检测器 — 三级检测模式
  * <p>
@@ -24,38 +22,36 @@ import java.util.Map;
  */
 public class HybridRoadDetector implements RoadDetectionFactory.IRoadDetector {
     private final BasicRoadDetector basicDetector = new BasicRoadDetector();
-    private final Map<BlockPos, Boolean> cache = new HashMap<>();
-    private static final int CACHE_SIZE = 500;
-
     /** 网络模式标尺：比积极模式更宽松 */
     private static final int NETWORK_MIN_LENGTH = 1;
     private static final int NETWORK_MAX_LENGTH = 999;
 
+    private static final TimingProfiler.Timer PROFILE = TimingProfiler.timer("detector.hybrid");
+
     @Override
     public boolean isOnRoad(Level level, BlockPos pos) {
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("========== HybridRoadDetector ==========");
-            QianmoSpeedMod.LOGGER.debug("位置: {}", pos);
+        long start = PROFILE.begin();
+        ModMetrics.HYBRID_INVOCATIONS.increment();
+        boolean result = detect(level, pos);
+        PROFILE.end(start);
+        return result;
+    }
+
+    private boolean detect(Level level, BlockPos pos) {
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("========== HybridRoadDetector ==========");
+            DebugTrace.log("位置: {}", pos);
         }
 
         // 客户端直接使用标准模式
         if (!(level instanceof ServerLevel serverLevel)) {
             boolean result = basicDetector.isOnRoad(level, pos, false);
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("客户端模式，使用标准检测: {}", result);
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("客户端模式，使用标准检测: {}", result);
             }
             return result;
         }
 
-        // 检查缓存
-        if (cache.containsKey(pos)) {
-            boolean cached = cache.get(pos);
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("使用缓存结果: {}", cached);
-            }
-            return cached;
-        }
-
         // ========== 三级检测 ==========
         AdvancedRoadHandler.RoadContext context = AdvancedRoadHandler.getRoadContext(serverLevel, pos);
 
@@ -65,46 +61,39 @@ public class HybridRoadDetector implements RoadDetectionFactory.IRoadDetector {
             case COMPLETED_ROAD:
                 // 路网模式：最宽松 — 确认是道路就认
                 result = basicDetector.isOnRoad(level, pos, NETWORK_MIN_LENGTH, NETWORK_MAX_LENGTH);
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("路网模式 ({}): {}", context, result ? "是道路" : "非道路");
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("路网模式 ({}): {}", context, result ? "是道路" : "非道路");
                 }
                 break;
 
             case PLANNED:
                 // 积极模式 — 较宽松的方向检测
                 result = basicDetector.isOnRoad(level, pos, true);
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("积极模式 (规划中): {}", result ? "是道路" : "非道路");
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("积极模式 (规划中): {}", result ? "是道路" : "非道路");
                 }
                 break;
 
             default:
                 // 标准模式
                 result = basicDetector.isOnRoad(level, pos, false);
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("标准模式 (未规划): {}", result ? "是道路" : "非道路");
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("标准模式 (未规划): {}", result ? "是道路" : "非道路");
                 }
                 break;
         }
 
-        // 更新缓存
-        if (cache.size() >= CACHE_SIZE) {
-            cache.clear();
-        }
-        cache.put(pos, result);
-
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("======================================");
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("======================================");
         }
 
         return result;
     }
 
     /**
-     * 清除同一 chunk 内的缓存（性能优化）
+     * 清除同一 chunk 内的缓存（检测器自身不缓存，清除的是 RoadDetectionFactory 的共享判定缓存）
      */
     public void clearChunkCache(int chunkX, int chunkZ) {
-        cache.keySet().removeIf(pos ->
-                pos.getX() >> 4 == chunkX && pos.getZ() >> 4 == chunkZ);
+        RoadDetectionFactory.SURFACE_CACHE.evictChunk(chunkX, chunkZ);
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.example.qianmospeed.road;
+
+import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.util.DebugTrace;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.block.Block;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 道路方块分类索引
+ * <p>
+ * 配置加载/变更后按 Block 预计算一次分类位掩码（基础/高级/台阶/自然/不完整），
+ * 热路径上的成员判断只需一次身份哈希查询，不再生成注册名字符串。
+ */
+public final class RoadBlockIndex {
+    /** 在基础模式道路方块列表中 */
+    public static final int BASIC = 1;
+    /** 在高级模式道路方块列表中 */
+    public static final int ADVANCED = 1 << 1;
+    /** 台阶类方块 */
+    public static final int SLAB = 1 << 2;
+    /** 自然方块（泥土、沙砾、石头等，智能模式使用高级检测） */
+    public static final int NATURAL = 1 << 3;
+    /** 不完整方块（台阶、楼梯、地毯、雪层、耕地、土径） */
+    public static final int INCOMPLETE = 1 << 4;
+
+    private static final String[] NATURAL_KEYWORDS = {
+            "dirt", "gravel", "sand", "mud", "clay", "snow", "grass", "podzol", "moss",
+            "terracotta", "mycelium", "stone", "cobblestone", "andesite", "diorite", "granite"
+    };
+
+    private static final String[] INCOMPLETE_KEYWORDS = {
+            "slab", "stairs", "carpet", "snow", "layer", "farmland", "path"
+    };
+
+    // null 表示需要重建（配置变更后首次查询时重建）
+    private static volatile Reference2IntOpenHashMap<Block> flagsByBlock = null;
+
+    private RoadBlockIndex() {
+    }
+
+    /**
+     * 获取方块的分类位掩码
+     */
+    public static int getFlags(Block block) {
+        Reference2IntOpenHashMap<Block> table = flagsByBlock;
+        if (table == null) {
+            table = rebuild();
+        }
+        return table.getInt(block);
+    }
+
+    /**
+     * 方块是否带有任一指定分类
+     */
+    public static boolean has(Block block, int mask) {
+        return (getFlags(block) & mask) != 0;
+    }
+
+    /**
+     * 标记索引失效，下次查询时按当前配置重建
+     * <p>
+     * 与 {@link #rebuild()} 同步：正在进行的重建（可能读到了旧列表）完成后才置空，不会覆盖这次失效。
+     */
+    public static synchronized void invalidate() {
+        flagsByBlock = null;
+    }
+
+    private static synchronized Reference2IntOpenHashMap<Block> rebuild() {
+        Reference2IntOpenHashMap<Block> current = flagsByBlock;
+        if (current != null) {
+            return current;
+        }
+
+        Set<String> basicIds = new HashSet<>(SpeedModConfig.getBasicRoadBlockIds());
+        Set<String> advancedIds = new HashSet<>(SpeedModConfig.getAdvancedRoadBlockIds());
+
+        Reference2IntOpenHashMap<Block> table = new Reference2IntOpenHashMap<>();
+        table.defaultReturnValue(0);
+
+        for (Map.Entry<ResourceKey<Block>, Block> entry : ForgeRegistries.BLOCKS.getEntries()) {
+            String blockId = entry.getKey().location().toString();
+            int flags = 0;
+            if (basicIds.contains(blockId)) flags |= BASIC;
+            if (advancedIds.contains(blockId)) flags |= ADVANCED;
+            if (blockId.contains("slab")) flags |= SLAB;
+            if (containsAny(blockId, NATURAL_KEYWORDS)) flags |= NATURAL;
+            if (containsAny(blockId, INCOMPLETE_KEYWORDS)) flags |= INCOMPLETE;
+            if (flags != 0) {
+                table.put(entry.getValue(), flags);
+            }
+        }
+
+        table.trim();
+        flagsByBlock = table;
+
+        DebugTrace.log("道路方块分类索引已重建: {} 个方块带有分类标记", table.size());
+        return table;
+    }
+
+    private static boolean containsAny(String blockId, String[] keywords) {
+        for (String keyword : keywords) {
+            if (blockId.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -4,6 +4,9 @@ import com.example.qianmospeed.QianmoSpeedMod;
 import com.example.qianmospeed.config.SpeedModConfig;
 import com.example.qianmospeed.config.SpeedModConfig.RoadDetectionMode;
 import com.example.qianmospeed.event.AdvancedRoadHandler;
+import com.example.qianmospeed.metrics.ModMetrics;
+import com.example.qianmospeed.util.DebugTrace;
+import com.example.qianmospeed.util.TimingProfiler;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
@@ -26,6 +29,13 @@ public class RoadDetectionFactory {
     private static final EnhancedRoadDetectorNoDirection ENHANCED_DETECTOR =
             new EnhancedRoadDetectorNoDirection();
 
+    // ========== 共享判定缓存（按维度区段位图，方块变化时失效）==========
+    // 模组唯一的判定缓存：各检测器自身不再缓存，失效范围与工厂实际运行的检测一致
+    static final RoadSurfaceCache SURFACE_CACHE =
+            RoadSurfaceCache.create("factory", RoadDetectionFactory::getScanReach);
+
+    private static final TimingProfiler.Timer PROFILE = TimingProfiler.timer("factory.isOnRoad");
+
     /**
      * ⭐⭐⭐ 核心方法：根据方块类型动态判断是否在道路上 ⭐⭐⭐
      * 此方法绕过缓存，直接根据方块类型选择检测器
@@ -34,33 +44,74 @@ public class RoadDetectionFactory {
         if (level == null || pos == null)
             return false;
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("========== 动态道路检测 ==========");
-            QianmoSpeedMod.LOGGER.debug("位置: {}", pos);
+        long start = PROFILE.begin();
+        ModMetrics.FACTORY_INVOCATIONS.increment();
+        boolean result;
+        int cached = SURFACE_CACHE.lookup(level, pos);
+        if (cached != RoadSurfaceCache.MISS) {
+            result = cached == RoadSurfaceCache.ROAD;
+        } else {
+            ModMetrics.FACTORY_DETECTIONS.increment();
+            result = detectOnRoad(level, pos);
+            SURFACE_CACHE.store(level, pos, result);
         }
+        PROFILE.end(start);
+        return result;
+    }
 
-        BlockState state = level.getBlockState(pos);
-        Block block = state.getBlock();
+    /**
+     * 共享缓存中是否仍保存着指定方块的同一判定（不计入命中统计）
+     * <p>
+     * 玩家与坐骑记住的判定都来自 {@link #isOnRoad}，只要对应的已知位还在，判定就仍然有效；
+     * 附近方块变化、区块卸载或区段过期都会清除已知位。
+     */
+    public static boolean isVerdictCached(Level level, long pos, boolean isRoad) {
+        return SURFACE_CACHE.peek(level, pos) == (isRoad ? RoadSurfaceCache.ROAD : RoadSurfaceCache.NOT_ROAD);
+    }
+
+    /**
+     * 检测器的水平扫描距离：方向检测每侧最多扫描 maxDirectionalLength * 3 格，再加上 3x3 密度检查的 1 格
+     */
+    public static int getScanReach() {
+        return SpeedModConfig.getMaxDirectionalLength() * 3 + 1;
+    }
+
+    /**
+     * 指定方块所属的连续长度索引：高级列表优先，与 detectOnRoad 的选择顺序一致；不是道路方块时返回 null
+     */
+    public static RoadRunIndex getRunIndex(Level level, BlockPos pos) {
+        Block block = ModMetrics.readBlockState(level, pos).getBlock();
+        if (SpeedModConfig.isAdvancedRoadBlock(block)) return RoadRunIndex.ADVANCED;
+        if (SpeedModConfig.isBasicRoadBlock(block)) return RoadRunIndex.BASIC;
+        return null;
+    }
 
-        String blockId = net.minecraftforge.registries.ForgeRegistries.BLOCKS.getKey(block).toString();
+    private static boolean detectOnRoad(Level level, BlockPos pos) {
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("========== 动态道路检测 ==========");
+            DebugTrace.log("位置: {}", pos);
+        }
 
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("方块ID: {}", blockId);
+        BlockState state = ModMetrics.readBlockState(level, pos);
+        Block block = state.getBlock();
+
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("方块ID: {}", net.minecraftforge.registries.ForgeRegistries.BLOCKS.getKey(block));
         }
 
         // ========== 优先级1：检查是否在高级列表中 ==========
         boolean inAdvanced = SpeedModConfig.isAdvancedRoadBlock(block);
 
         if (inAdvanced) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("✓ 方块在高级列表中，使用高级检测器");
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("✓ 方块在高级列表中，使用高级检测器");
             }
 
             // 使用单例高级检测器（无方向检测版本，避免误判）
             boolean result = ENHANCED_DETECTOR.isOnRoad(level, pos);
 
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("高级检测器结果: {}", result ? "是道路" : "非道路");
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("高级检测器结果: {}", result ? "是道路" : "非道路");
             }
 
             return result;
@@ -70,8 +121,8 @@ public class RoadDetectionFactory {
         boolean inBasic = SpeedModConfig.isBasicRoadBlock(block);
 
         if (inBasic) {
-            if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("✓ 方块在基础列表中，使用基础检测器");
+            if (DebugTrace.enabled()) {
+                DebugTrace.log("✓ 方块在基础列表中，使用基础检测器");
             }
 
             BasicRoadDetector basicDetector = BASIC_DETECTOR;
@@ -80,13 +131,12 @@ public class RoadDetectionFactory {
             if (AdvancedRoadHandler.isAvailable() && level instanceof net.minecraft.server.level.ServerLevel) {
                 // 使用混合检测器，传递区块规划状态
                 boolean isPlanned = AdvancedRoadHandler.isPlannedChunk(
-                        (net.minecraft.server.level.ServerLevel) level,
-                        new net.minecraft.world.level.ChunkPos(pos));
+                        (net.minecraft.server.level.ServerLevel) level, pos.getX() >> 4, pos.getZ() >> 4);
 
                 boolean result = basicDetector.isOnRoad(level, pos, isPlanned);
 
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("混合检测器结果 (规划={}): {}",
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("混合检测器结果 (规划={}): {}",
                             isPlanned ? "是" : "否", result ? "是道路" : "非道路");
                 }
 
@@ -94,8 +144,8 @@ public class RoadDetectionFactory {
             } else {
                 boolean result = basicDetector.isOnRoad(level, pos);
 
-                if (SpeedModConfig.isDebugMessagesEnabled()) {
-                    QianmoSpeedMod.LOGGER.debug("基础检测器结果: {}", result ? "是道路" : "非道路");
+                if (DebugTrace.enabled()) {
+                    DebugTrace.log("基础检测器结果: {}", result ? "是道路" : "非道路");
                 }
 
                 return result;
@@ -103,9 +153,9 @@ public class RoadDetectionFactory {
         }
 
         // ========== 不在任何列表中 ==========
-        if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("✗ 方块不在任何道路列表中");
-            QianmoSpeedMod.LOGGER.debug("======================================");
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("✗ 方块不在任何道路列表中");
+            DebugTrace.log("======================================");
         }
 
         return false;
@@ -133,40 +183,56 @@ public class RoadDetectionFactory {
         }
 
         // 配置变化或首次创建，重新创建检测器
-        QianmoSpeedMod.LOGGER.debug("================== 检测器创建 ==================");
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("================== 检测器创建 ==================");
+        }
 
         // 如果 RoadWeaver 可用，使用混合检测器
         if (currentRoadWeaverAvailable) {
-            QianmoSpeedMod.LOGGER.debug(">>> 创建混合检测器 (RoadWeaver优先)");
+            if (DebugTrace.enabled()) {
+                DebugTrace.log(">>> 创建混合检测器 (RoadWeaver优先)");
+            }
             cachedDetector = new HybridRoadDetector();
         } else {
             switch (currentMode) {
                 case BASIC:
-                    QianmoSpeedMod.LOGGER.debug(">>> 创建基础道路检测器 (BASIC模式)");
+                    if (DebugTrace.enabled()) {
+                        DebugTrace.log(">>> 创建基础道路检测器 (BASIC模式)");
+                    }
                     cachedDetector = new BasicRoadDetector();
                     break;
                 case ENHANCED:
                     if (currentAdvanced) {
-                        QianmoSpeedMod.LOGGER.debug(">>> 创建增强道路检测器 (ENHANCED模式)");
+                        if (DebugTrace.enabled()) {
+                            DebugTrace.log(">>> 创建增强道路检测器 (ENHANCED模式)");
+                        }
                         cachedDetector = new EnhancedRoadDetectorNoDirection();
                     } else {
-                        QianmoSpeedMod.LOGGER.debug(">>> 创建基础道路检测器 (ENHANCED模式但未启用高级功能)");
+                        if (DebugTrace.enabled()) {
+                            DebugTrace.log(">>> 创建基础道路检测器 (ENHANCED模式但未启用高级功能)");
+                        }
                         cachedDetector = new BasicRoadDetector();
                     }
                     break;
                 case SMART:
-                    QianmoSpeedMod.LOGGER.debug(">>> 创建智能道路检测器 (SMART模式)");
+                    if (DebugTrace.enabled()) {
+                        DebugTrace.log(">>> 创建智能道路检测器 (SMART模式)");
+                    }
                     cachedDetector = new SmartRoadDetector();
                     break;
                 default:
-                    QianmoSpeedMod.LOGGER.debug(">>> 创建基础道路检测器 (默认)");
+                    if (DebugTrace.enabled()) {
+                        DebugTrace.log(">>> 创建基础道路检测器 (默认)");
+                    }
                     cachedDetector = new BasicRoadDetector();
                     break;
             }
         }
 
-        QianmoSpeedMod.LOGGER.debug("最终检测器类型: {}", cachedDetector.getClass().getSimpleName());
-        QianmoSpeedMod.LOGGER.debug("============================================");
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("最终检测器类型: {}", cachedDetector.getClass().getSimpleName());
+            DebugTrace.log("============================================");
+        }
 
         // 更新缓存状态
         lastMode = currentMode;
@@ -181,7 +247,11 @@ public class RoadDetectionFactory {
      */
     public static void invalidateCache() {
         cachedDetector = null;
-        QianmoSpeedMod.LOGGER.debug("道路检测器缓存已清除");
+        RoadSurfaceCache.clearAll();
+        RoadRunIndex.clearAll();
+        if (DebugTrace.enabled()) {
+            DebugTrace.log("道路检测器缓存已清除");
+        }
     }
 
     /**
@@ -0,0 +1,262 @@
+package com.example.qianmospeed.road;
+
+import com.example.qianmospeed.metrics.ModMetrics;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 道路方块连续长度索引
+ * <p>
+ * 按区段缓存每一行（沿 X / 沿 Z，16 格）的道路方块位掩码，行在首次访问时从区块数据填充，
+ * 方块变化时只把所在的两行标记为待重填。方向长度查询因此只需按跨越的区段数逐段做位运算，
+ * 不再逐格读取方块状态。与 {@link RoadSurfaceCache} 一样，区段最多存活
+ * {@link RoadSurfaceCache#MAX_AGE_TICKS} tick，覆盖没有事件可监听的方块写入。
+ * <p>
+ * 只缓存服务端世界；客户端世界没有失效事件，直接逐格扫描。
+ */
+public final class RoadRunIndex {
+    /** 基础模式道路方块 */
+    public static final RoadRunIndex BASIC = new RoadRunIndex(RoadBlockIndex.BASIC);
+    /** 高级模式道路方块 */
+    public static final RoadRunIndex ADVANCED = new RoadRunIndex(RoadBlockIndex.ADVANCED);
+
+    private static final List<RoadRunIndex> INSTANCES = List.of(BASIC, ADVANCED);
+
+    private final int blockMask;
+    private final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<SectionRows>> dimensions = new HashMap<>();
+
+    private ResourceKey<Level> lastDimension;
+    private Long2ObjectOpenHashMap<SectionRows> lastSections;
+
+    /**
+     * 单个区段的行位图
+     */
+    private static final class SectionRows {
+        // 下标 (y << 4 | z)，第 x 位表示该格是否为道路方块
+        final short[] rowsX = new short[256];
+        // 下标 (y << 4 | x)，第 z 位表示该格是否为道路方块
+        final short[] rowsZ = new short[256];
+        // 行是否已填充
+        final long[] filledX = new long[4];
+        final long[] filledZ = new long[4];
+        // 区段创建时的游戏时间
+        final long createdAt;
+
+        SectionRows(long createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    private RoadRunIndex(int blockMask) {
+        this.blockMask = blockMask;
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 从起点（不含）沿指定方向统计连续道路方块数量
+     *
+     * @param alongX   true 沿 X 轴，false 沿 Z 轴
+     * @param positive 是否朝正方向
+     * @param maxCount 最多统计的格数
+     */
+    public int countRun(Level level, BlockPos start, boolean alongX, boolean positive, int maxCount) {
+        if (maxCount <= 0) return 0;
+        int y = start.getY();
+        if (level.isOutsideBuildHeight(y)) return 0;
+
+        if (level.isClientSide()) {
+            return countRunDirect(level, start, alongX, positive, maxCount);
+        }
+
+        Long2ObjectOpenHashMap<SectionRows> sections = sectionsFor(level);
+        int fixed = alongX ? start.getZ() : start.getX();
+        int cur = (alongX ? start.getX() : start.getZ()) + (positive ? 1 : -1);
+        int remaining = maxCount;
+        int count = 0;
+
+        while (remaining > 0) {
+            int s = SectionPos.blockToSectionCoord(cur);
+            int chunkX = alongX ? s : SectionPos.blockToSectionCoord(fixed);
+            int chunkZ = alongX ? SectionPos.blockToSectionCoord(fixed) : s;
+            if (!level.hasChunk(chunkX, chunkZ)) break;
+
+            int row = getRow(level, sections, chunkX, chunkZ, y, fixed, alongX) & 0xFFFF;
+            int local = cur & 15;
+
+            int available;
+            int ones;
+            if (positive) {
+                available = 16 - local;
+                ones = Integer.numberOfTrailingZeros(~(row >>> local));
+            } else {
+                available = local + 1;
+                ones = Integer.numberOfLeadingZeros(~(row << (31 - local)));
+            }
+            ones = Math.min(ones, available);
+
+            int taken = Math.min(ones, remaining);
+            count += taken;
+            remaining -= taken;
+            if (ones < available) break;
+
+            cur += positive ? ones : -ones;
+        }
+        return count;
+    }
+
+    /**
+     * 逐格扫描（客户端世界使用）
+     */
+    private int countRunDirect(Level level, BlockPos start, boolean alongX, boolean positive, int maxCount) {
+        BlockPos.MutableBlockPos cursor = start.mutable();
+        int direction = positive ? 1 : -1;
+        int length = 0;
+        for (int i = 1; i <= maxCount; i++) {
+            cursor.move(alongX ? direction : 0, 0, alongX ? 0 : direction);
+            if (!level.isLoaded(cursor)) break;
+            if (!RoadBlockIndex.has(ModMetrics.readBlockState(level, cursor).getBlock(), blockMask)) break;
+            length++;
+        }
+        return length;
+    }
+
+    private short getRow(Level level, Long2ObjectOpenHashMap<SectionRows> sections,
+            int chunkX, int chunkZ, int y, int fixed, boolean alongX) {
+        int sectionY = SectionPos.blockToSectionCoord(y);
+        long key = SectionPos.asLong(chunkX, sectionY, chunkZ);
+        SectionRows rows = sections.get(key);
+        long now = level.getGameTime();
+        if (rows == null || now - rows.createdAt >= RoadSurfaceCache.MAX_AGE_TICKS) {
+            // 首次访问或已过期：整段重新填充
+            rows = new SectionRows(now);
+            sections.put(key, rows);
+        }
+
+        int rowIndex = ((y & 15) << 4) | (fixed & 15);
+        long[] filled = alongX ? rows.filledX : rows.filledZ;
+        short[] bits = alongX ? rows.rowsX : rows.rowsZ;
+        long filledMask = 1L << rowIndex;
+        if ((filled[rowIndex >>> 6] & filledMask) != 0) {
+            return bits[rowIndex];
+        }
+
+        int value = 0;
+        LevelChunk chunk = level.getChunk(chunkX, chunkZ);
+        LevelChunkSection section = chunk.getSection(chunk.getSectionIndex(y));
+        if (!section.hasOnlyAir()) {
+            for (int i = 0; i < 16; i++) {
+                int localX = alongX ? i : fixed & 15;
+                int localZ = alongX ? fixed & 15 : i;
+                if (RoadBlockIndex.has(section.getBlockState(localX, y & 15, localZ).getBlock(), blockMask)) {
+                    value |= 1 << i;
+                }
+            }
+            ModMetrics.BLOCK_STATE_READS.add(16);
+        }
+
+        bits[rowIndex] = (short) value;
+        filled[rowIndex >>> 6] |= filledMask;
+        return (short) value;
+    }
+
+    // ==================== 失效 ====================
+
+    /**
+     * 方块变化：所在的 X 行与 Z 行待重填
+     */
+    public void invalidate(Level level, BlockPos pos) {
+        Long2ObjectOpenHashMap<SectionRows> sections = dimensions.get(level.dimension());
+        if (sections == null) return;
+
+        SectionRows rows = sections.get(SectionPos.asLong(pos));
+        if (rows == null) return;
+
+        int y = pos.getY() & 15;
+        int rowX = (y << 4) | (pos.getZ() & 15);
+        int rowZ = (y << 4) | (pos.getX() & 15);
+        rows.filledX[rowX >>> 6] &= ~(1L << rowX);
+        rows.filledZ[rowZ >>> 6] &= ~(1L << rowZ);
+    }
+
+    public void evictChunk(Level level, ChunkPos chunk) {
+        Long2ObjectOpenHashMap<SectionRows> sections = dimensions.get(level.dimension());
+        if (sections == null || sections.isEmpty()) return;
+
+        for (int sy = level.getMinSection(); sy < level.getMaxSection(); sy++) {
+            sections.remove(SectionPos.asLong(chunk.x, sy, chunk.z));
+        }
+    }
+
+    public void evictLevel(Level level) {
+        dimensions.remove(level.dimension());
+        lastDimension = null;
+        lastSections = null;
+    }
+
+    public void clear() {
+        dimensions.clear();
+        lastDimension = null;
+        lastSections = null;
+    }
+
+    public int getSectionCount() {
+        int count = 0;
+        for (Long2ObjectOpenHashMap<SectionRows> sections : dimensions.values()) {
+            count += sections.size();
+        }
+        return count;
+    }
+
+    // ==================== 全局入口（供事件处理器调用）====================
+
+    public static void onBlockChanged(Level level, BlockPos pos) {
+        if (level.isClientSide()) return;
+        for (RoadRunIndex index : INSTANCES) {
+            index.invalidate(level, pos);
+        }
+    }
+
+    public static void onChunkUnload(Level level, ChunkPos chunk) {
+        if (level.isClientSide()) return;
+        for (RoadRunIndex index : INSTANCES) {
+            index.evictChunk(level, chunk);
+        }
+    }
+
+    public static void onLevelUnload(Level level) {
+        if (level.isClientSide()) return;
+        for (RoadRunIndex index : INSTANCES) {
+            index.evictLevel(level);
+        }
+    }
+
+    public static void clearAll() {
+        for (RoadRunIndex index : INSTANCES) {
+            index.clear();
+        }
+    }
+
+    private Long2ObjectOpenHashMap<SectionRows> sectionsFor(Level level) {
+        ResourceKey<Level> dimension = level.dimension();
+        if (dimension == lastDimension && lastSections != null) {
+            return lastSections;
+        }
+
+        Long2ObjectOpenHashMap<SectionRows> sections =
+                dimensions.computeIfAbsent(dimension, k -> new Long2ObjectOpenHashMap<>());
+        lastDimension = dimension;
+        lastSections = sections;
+        return sections;
+    }
+}
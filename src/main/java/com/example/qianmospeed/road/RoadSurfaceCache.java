@@ -0,0 +1,391 @@
+package com.example.qianmospeed.road;
+
+import com.example.qianmospeed.metrics.MetricsExporter;
+import com.example.qianmospeed.util.TimingProfiler;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * 道路判定结果缓存（按维度、按 16x16x16 区段位图存储）
+ * <p>
+ * 每个区段两组 4096 位：已知位 + 道路位。查询命中只需一次区段查找和一次位测试。
+ * 方块变化时按检测器的扫描范围失效相关行列，区块卸载时按区段淘汰。
+ * 并非所有方块写入都有事件可以监听，区段创建后最多存活 {@link #MAX_AGE_TICKS} tick，过期后整段丢弃重新检测。
+ * 只缓存服务端世界，所有访问都在服务器线程上进行。
+ */
+public final class RoadSurfaceCache {
+    /** 未命中 */
+    public static final int MISS = -1;
+    /** 已缓存：非道路 */
+    public static final int NOT_ROAD = 0;
+    /** 已缓存：道路 */
+    public static final int ROAD = 1;
+
+    /** 区段最长存活时间（tick） */
+    public static final int MAX_AGE_TICKS = 600;
+
+    // 每区段 4096 位 = 64 个 long；前 64 个为已知位，后 64 个为道路位，最后一个 long 是区段创建时的游戏时间
+    private static final int WORDS = 64;
+    private static final int CREATED_AT = WORDS * 2;
+
+    private static final List<RoadSurfaceCache> INSTANCES = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final IntSupplier reach;
+    private final TimingProfiler.HitCounter profileHits;
+    // 累计统计（JMX 读取）；淘汰按整段移除的区段计数，行列失效只清除位不计入
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // 区段数快照（服务器线程上写，供其他线程读取，不直接遍历 HashMap）
+    private volatile int sectionCount = 0;
+    private final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<long[]>> dimensions = new HashMap<>();
+
+    // 最近一次访问的维度（玩家大多在同一维度，省去一次 HashMap 查找）
+    private ResourceKey<Level> lastDimension;
+    private Long2ObjectOpenHashMap<long[]> lastSections;
+
+    private RoadSurfaceCache(String name, IntSupplier reach) {
+        this.name = name;
+        this.reach = reach;
+        this.profileHits = TimingProfiler.hitCounter("cache." + name);
+    }
+
+    /**
+     * 创建并登记一个缓存实例
+     *
+     * @param reach 判定结果依赖的水平扫描距离（方块变化时在该范围内失效）
+     */
+    public static RoadSurfaceCache create(String name, IntSupplier reach) {
+        RoadSurfaceCache cache = new RoadSurfaceCache(name, reach);
+        INSTANCES.add(cache);
+        MetricsExporter.onCacheCreated(cache);
+        return cache;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 所有已登记的缓存实例
+     */
+    public static List<RoadSurfaceCache> getInstances() {
+        return Collections.unmodifiableList(INSTANCES);
+    }
+
+    // ==================== 查询/写入 ====================
+
+    /**
+     * 查询缓存的判定结果
+     *
+     * @return {@link #ROAD}、{@link #NOT_ROAD} 或 {@link #MISS}
+     */
+    public int lookup(Level level, BlockPos pos) {
+        if (level.isClientSide()) return MISS;
+        int result = lookupBits(level, pos.getX(), pos.getY(), pos.getZ());
+        (result != MISS ? hits : misses).increment();
+        profileHits.record(result != MISS);
+        return result;
+    }
+
+    /**
+     * 与 {@link #lookup} 相同，但不计入命中统计；供调用方确认自己记住的判定是否仍在缓存中
+     *
+     * @param posKey 方块位置（BlockPos.asLong）
+     */
+    public int peek(Level level, long posKey) {
+        if (level.isClientSide()) return MISS;
+        return lookupBits(level, BlockPos.getX(posKey), BlockPos.getY(posKey), BlockPos.getZ(posKey));
+    }
+
+    private int lookupBits(Level level, int x, int y, int z) {
+        Long2ObjectOpenHashMap<long[]> sections = sectionsFor(level, false);
+        if (sections == null) return MISS;
+
+        long key = sectionKey(x, y, z);
+        long[] bits = sections.get(key);
+        if (bits == null) return MISS;
+        if (level.getGameTime() - bits[CREATED_AT] >= MAX_AGE_TICKS) {
+            sections.remove(key);
+            onEvicted(1);
+            return MISS;
+        }
+
+        int index = bitIndex(x, y, z);
+        long mask = 1L << index;
+        int word = index >>> 6;
+        if ((bits[word] & mask) == 0) return MISS;
+        return (bits[WORDS + word] & mask) != 0 ? ROAD : NOT_ROAD;
+    }
+
+    /**
+     * 写入判定结果
+     */
+    public void store(Level level, BlockPos pos, boolean isRoad) {
+        if (level.isClientSide()) return;
+        Long2ObjectOpenHashMap<long[]> sections = sectionsFor(level, true);
+
+        long key = sectionKey(pos.getX(), pos.getY(), pos.getZ());
+        long[] bits = sections.get(key);
+        if (bits == null) {
+            bits = new long[WORDS * 2 + 1];
+            bits[CREATED_AT] = level.getGameTime();
+            sections.put(key, bits);
+            sectionCount++;
+        }
+
+        int index = bitIndex(pos.getX(), pos.getY(), pos.getZ());
+        long mask = 1L << index;
+        int word = index >>> 6;
+        bits[word] |= mask;
+        if (isRoad) {
+            bits[WORDS + word] |= mask;
+        } else {
+            bits[WORDS + word] &= ~mask;
+        }
+    }
+
+    // ==================== 失效 ====================
+
+    /**
+     * 单个方块变化：失效同一高度上沿 X/Z 的扫描行列以及周围 3x3
+     */
+    public void invalidateAround(Level level, BlockPos pos) {
+        Long2ObjectOpenHashMap<long[]> sections = sectionsFor(level, false);
+        if (sections == null || sections.isEmpty()) return;
+
+        int x = pos.getX(), y = pos.getY(), z = pos.getZ();
+        int r = Math.max(1, reach.getAsInt());
+
+        clearRow(sections, x - r, x + r, y, z, true);
+        clearRow(sections, z - r, z + r, y, x, false);
+        clearRow(sections, x - 1, x + 1, y, z - 1, true);
+        clearRow(sections, x - 1, x + 1, y, z + 1, true);
+    }
+
+    /**
+     * 批量变化（如爆炸）：整段失效受影响包围盒（水平方向按扫描距离扩展）内的区段
+     */
+    public void invalidateBox(Level level, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        Long2ObjectOpenHashMap<long[]> sections = sectionsFor(level, false);
+        if (sections == null || sections.isEmpty()) return;
+
+        int r = Math.max(1, reach.getAsInt());
+        int minSx = SectionPos.blockToSectionCoord(minX - r), maxSx = SectionPos.blockToSectionCoord(maxX + r);
+        int minSy = SectionPos.blockToSectionCoord(minY), maxSy = SectionPos.blockToSectionCoord(maxY);
+        int minSz = SectionPos.blockToSectionCoord(minZ - r), maxSz = SectionPos.blockToSectionCoord(maxZ + r);
+
+        long candidates = (long) (maxSx - minSx + 1) * (maxSy - minSy + 1) * (maxSz - minSz + 1);
+        if (candidates > sections.size()) {
+            // 范围比缓存本身还大：直接遍历缓存
+            ObjectIterator<Long2ObjectMap.Entry<long[]>> it = sections.long2ObjectEntrySet().fastIterator();
+            while (it.hasNext()) {
+                long key = it.next().getLongKey();
+                int sx = SectionPos.x(key), sy = SectionPos.y(key), sz = SectionPos.z(key);
+                if (sx >= minSx && sx <= maxSx && sy >= minSy && sy <= maxSy && sz >= minSz && sz <= maxSz) {
+                    it.remove();
+                    onEvicted(1);
+                }
+            }
+            return;
+        }
+
+        for (int sx = minSx; sx <= maxSx; sx++) {
+            for (int sy = minSy; sy <= maxSy; sy++) {
+                for (int sz = minSz; sz <= maxSz; sz++) {
+                    if (sections.remove(SectionPos.asLong(sx, sy, sz)) != null) {
+                        onEvicted(1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 区块卸载：淘汰该区块列的所有区段
+     */
+    public void evictChunk(Level level, ChunkPos chunk) {
+        Long2ObjectOpenHashMap<long[]> sections = sectionsFor(level, false);
+        if (sections == null || sections.isEmpty()) return;
+
+        for (int sy = level.getMinSection(); sy < level.getMaxSection(); sy++) {
+            if (sections.remove(SectionPos.asLong(chunk.x, sy, chunk.z)) != null) {
+                onEvicted(1);
+            }
+        }
+    }
+
+    /**
+     * 淘汰所有维度中指定区块列的区段
+     */
+    public void evictChunk(int chunkX, int chunkZ) {
+        for (Long2ObjectOpenHashMap<long[]> sections : dimensions.values()) {
+            int before = sections.size();
+            sections.keySet().removeIf((long key) -> SectionPos.x(key) == chunkX && SectionPos.z(key) == chunkZ);
+            onEvicted(before - sections.size());
+        }
+    }
+
+    public void evictLevel(Level level) {
+        Long2ObjectOpenHashMap<long[]> sections = dimensions.remove(level.dimension());
+        if (sections != null) {
+            onEvicted(sections.size());
+        }
+        lastDimension = null;
+        lastSections = null;
+    }
+
+    public void clear() {
+        onEvicted(getSectionCount());
+        dimensions.clear();
+        lastDimension = null;
+        lastSections = null;
+    }
+
+    private void onEvicted(int count) {
+        if (count <= 0) return;
+        evictions.add(count);
+        sectionCount -= count;
+    }
+
+    // ==================== 统计 ====================
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 累计淘汰的区段数（方块批量变化、区段过期、区块/维度卸载、整体清空）
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 当前区段数（可在任意线程读取）
+     */
+    public int getCachedSectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * 当前缓存的区段数（所有维度，只在服务器线程上调用）
+     */
+    public int getSectionCount() {
+        int count = 0;
+        for (Long2ObjectOpenHashMap<long[]> sections : dimensions.values()) {
+            count += sections.size();
+        }
+        return count;
+    }
+
+    // ==================== 全局入口（供事件处理器调用）====================
+
+    public static void onBlockChanged(Level level, BlockPos pos) {
+        if (level.isClientSide()) return;
+        for (RoadSurfaceCache cache : INSTANCES) {
+            cache.invalidateAround(level, pos);
+        }
+    }
+
+    public static void onBlocksChanged(Level level, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (level.isClientSide()) return;
+        for (RoadSurfaceCache cache : INSTANCES) {
+            cache.invalidateBox(level, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+    }
+
+    public static void onChunkUnload(Level level, ChunkPos chunk) {
+        if (level.isClientSide()) return;
+        for (RoadSurfaceCache cache : INSTANCES) {
+            cache.evictChunk(level, chunk);
+        }
+    }
+
+    public static void onLevelUnload(Level level) {
+        if (level.isClientSide()) return;
+        for (RoadSurfaceCache cache : INSTANCES) {
+            cache.evictLevel(level);
+        }
+    }
+
+    public static void clearAll() {
+        for (RoadSurfaceCache cache : INSTANCES) {
+            cache.clear();
+        }
+    }
+
+    // ==================== 内部工具 ====================
+
+    private Long2ObjectOpenHashMap<long[]> sectionsFor(Level level, boolean create) {
+        ResourceKey<Level> dimension = level.dimension();
+        if (dimension == lastDimension && lastSections != null) {
+            return lastSections;
+        }
+
+        Long2ObjectOpenHashMap<long[]> sections = dimensions.get(dimension);
+        if (sections == null) {
+            if (!create) return null;
+            sections = new Long2ObjectOpenHashMap<>();
+            dimensions.put(dimension, sections);
+        }
+        lastDimension = dimension;
+        lastSections = sections;
+        return sections;
+    }
+
+    /**
+     * 清除一行（同一高度）上 [from, to] 范围内的已知位
+     *
+     * @param alongX true 表示沿 X 方向（fixed 为 Z 坐标），false 表示沿 Z 方向（fixed 为 X 坐标）
+     */
+    private static void clearRow(Long2ObjectOpenHashMap<long[]> sections, int from, int to, int y, int fixed,
+            boolean alongX) {
+        int sy = SectionPos.blockToSectionCoord(y);
+        int fixedSection = SectionPos.blockToSectionCoord(fixed);
+
+        for (int s = SectionPos.blockToSectionCoord(from); s <= SectionPos.blockToSectionCoord(to); s++) {
+            long[] bits = sections.get(alongX
+                    ? SectionPos.asLong(s, sy, fixedSection)
+                    : SectionPos.asLong(fixedSection, sy, s));
+            if (bits == null) continue;
+
+            int start = Math.max(from, s << 4);
+            int end = Math.min(to, (s << 4) + 15);
+            for (int v = start; v <= end; v++) {
+                int index = alongX ? bitIndex(v, y, fixed) : bitIndex(fixed, y, v);
+                bits[index >>> 6] &= ~(1L << index);
+            }
+        }
+    }
+
+    private static long sectionKey(int x, int y, int z) {
+        return SectionPos.asLong(
+                SectionPos.blockToSectionCoord(x),
+                SectionPos.blockToSectionCoord(y),
+                SectionPos.blockToSectionCoord(z));
+    }
+
+    private static int bitIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
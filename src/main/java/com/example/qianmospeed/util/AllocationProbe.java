@@ -0,0 +1,151 @@
+package com.example.qianmospeed.util;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 热路径内存分配探针
+ * <p>
+ * 通过 {@code com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()} 统计一段代码在当前线程上分配的字节数，
+ * 每 {@link #WINDOW} 次采样输出一次平均值，平均值超过阈值时记录错误日志并置位 {@link #isOverThreshold()}，
+ * 供开发环境和无头测试工具判定回归。
+ * <p>
+ * 默认关闭，开启方式（JVM 参数）：{@code -Dqianmospeed.allocationProbe=<每次采样允许的字节数>}。
+ * 关闭时 {@link #begin()} 只读取一个 final 字段。调试消息开启时日志参数本身会产生分配，测量前应关闭调试消息。
+ */
+public final class AllocationProbe {
+    public static final String PROPERTY = "qianmospeed.allocationProbe";
+    // 每个统计窗口的采样次数
+    public static final int WINDOW = 200;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = findThreadBean();
+    private static final long THRESHOLD = Long.getLong(PROPERTY, -1L);
+
+    private final String name;
+    private final boolean enabled;
+    private final long threshold;
+
+    private long windowBytes = 0;
+    private int windowSamples = 0;
+    private long lastAverage = 0;
+    private long maxAverage = 0;
+    private boolean overThreshold = false;
+
+    private AllocationProbe(String name, boolean enabled, long threshold) {
+        this.name = name;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        if (enabled) {
+            enableTracking();
+        }
+    }
+
+    /**
+     * 按 JVM 参数创建探针（未设置参数或 JVM 不支持时为关闭状态）
+     */
+    public static AllocationProbe create(String name) {
+        return new AllocationProbe(name, THREAD_BEAN != null && THRESHOLD >= 0, THRESHOLD);
+    }
+
+    /**
+     * 显式指定阈值创建探针（测试工具使用，不依赖 JVM 参数）
+     */
+    public static AllocationProbe create(String name, long thresholdBytes) {
+        return new AllocationProbe(name, THREAD_BEAN != null, thresholdBytes);
+    }
+
+    public static boolean isSupported() {
+        return THREAD_BEAN != null;
+    }
+
+    // ==================== 采样 ====================
+
+    /**
+     * 开始一次采样
+     *
+     * @return 当前线程已分配字节数；探针关闭时返回 -1
+     */
+    public long begin() {
+        return enabled ? THREAD_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * 结束一次采样
+     */
+    public void end(long start) {
+        if (start < 0) return;
+        // 两次读取之间的差值即本次采样的分配量（读取本身不分配）
+        windowBytes += THREAD_BEAN.getCurrentThreadAllocatedBytes() - start;
+        if (++windowSamples < WINDOW) return;
+
+        lastAverage = windowBytes / windowSamples;
+        maxAverage = Math.max(maxAverage, lastAverage);
+        windowBytes = 0;
+        windowSamples = 0;
+
+        if (lastAverage > threshold) {
+            overThreshold = true;
+            QianmoSpeedMod.LOGGER.error("【分配探针】{} 平均每次分配 {} 字节，超过阈值 {} 字节", name, lastAverage, threshold);
+        } else {
+            QianmoSpeedMod.LOGGER.info("【分配探针】{} 平均每次分配 {} 字节", name, lastAverage);
+        }
+    }
+
+    // ==================== 结果 ====================
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 最近一个完整窗口的平均分配字节数
+     */
+    public long getLastAverage() {
+        return lastAverage;
+    }
+
+    /**
+     * 所有完整窗口中最大的平均分配字节数
+     */
+    public long getMaxAverage() {
+        return maxAverage;
+    }
+
+    /**
+     * 是否曾有窗口超过阈值
+     */
+    public boolean isOverThreshold() {
+        return overThreshold;
+    }
+
+    public void reset() {
+        windowBytes = 0;
+        windowSamples = 0;
+        lastAverage = 0;
+        maxAverage = 0;
+        overThreshold = false;
+    }
+
+    /**
+     * 只在有探针开启时打开 JVM 的线程分配统计，关闭的探针不改变 JVM 设置
+     */
+    private static synchronized void enableTracking() {
+        if (!THREAD_BEAN.isThreadAllocatedMemoryEnabled()) {
+            THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean findThreadBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+                return sunBean;
+            }
+        } catch (Throwable ignored) {
+            // 非 HotSpot JVM 或模块不可访问
+        }
+        return null;
+    }
+}
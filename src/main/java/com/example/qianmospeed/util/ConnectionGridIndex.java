@@ -0,0 +1,170 @@
+package com.example.qianmospeed.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结构连接空间索引（均匀网格）
+ * <p>
+ * 加载 SavedData 时把已完成的连接线段按 256x256 网格光栅化：每个网格只登记与其距离不超过
+ * 判定距离的线段。查询时只需取玩家所在网格的少量候选线段做距离测试，一次查询同时给出
+ * 已完成道路/公路两个标记。构建后不可变，可在多线程间共享。
+ */
+public final class ConnectionGridIndex {
+    /** 在已完成的连接附近（包括公路） */
+    public static final int COMPLETED = 1;
+    /** 在已完成的公路连接附近 */
+    public static final int HIGHWAY = 1 << 1;
+
+    public static final ConnectionGridIndex EMPTY =
+            new ConnectionGridIndex(new Long2ObjectOpenHashMap<>(), new double[0], new boolean[0], 0, 0);
+
+    private static final int CELL_SHIFT = 8;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    // 网格键 → 候选线段下标（公路在前，命中公路即可提前返回）
+    private final Long2ObjectOpenHashMap<int[]> cells;
+    // 每条线段 4 个值：ax, az, bx, bz
+    private final double[] segments;
+    private final boolean[] highway;
+    private final double maxDistanceSq;
+    private final int segmentCount;
+
+    private ConnectionGridIndex(Long2ObjectOpenHashMap<int[]> cells, double[] segments, boolean[] highway,
+            double maxDistance, int segmentCount) {
+        this.cells = cells;
+        this.segments = segments;
+        this.highway = highway;
+        this.maxDistanceSq = maxDistance * maxDistance;
+        this.segmentCount = segmentCount;
+    }
+
+    // ==================== 构建 ====================
+
+    /**
+     * 由连接列表构建索引（只收录已完成的连接）
+     *
+     * @param maxDistance 判定为"在连接上"的最大水平距离
+     */
+    public static ConnectionGridIndex build(List<RoadWeaverH2Helper.StructureConnection> connections,
+            List<RoadWeaverH2Helper.StructureConnection> highwayConnections, double maxDistance) {
+        List<RoadWeaverH2Helper.StructureConnection> completed = new ArrayList<>();
+        // 公路先入列，使其在每个网格中排在前面
+        for (RoadWeaverH2Helper.StructureConnection conn : highwayConnections) {
+            if (conn.isCompleted()) completed.add(conn);
+        }
+        for (RoadWeaverH2Helper.StructureConnection conn : connections) {
+            if (conn.isCompleted()) completed.add(conn);
+        }
+        if (completed.isEmpty()) return EMPTY;
+
+        int count = completed.size();
+        double[] segments = new double[count * 4];
+        boolean[] highway = new boolean[count];
+        Long2ObjectOpenHashMap<IntArrayList> building = new Long2ObjectOpenHashMap<>();
+
+        // 网格中心到网格内任意点的最大距离（半对角线）
+        double cellRadius = CELL_SIZE * Math.sqrt(2) / 2;
+        double cellReachSq = (maxDistance + cellRadius) * (maxDistance + cellRadius);
+
+        for (int i = 0; i < count; i++) {
+            RoadWeaverH2Helper.StructureConnection conn = completed.get(i);
+            double ax = conn.from.getX(), az = conn.from.getZ();
+            double bx = conn.to.getX(), bz = conn.to.getZ();
+            segments[i * 4] = ax;
+            segments[i * 4 + 1] = az;
+            segments[i * 4 + 2] = bx;
+            segments[i * 4 + 3] = bz;
+            highway[i] = conn.isHighway;
+
+            int minCx = (int) Math.floor((Math.min(ax, bx) - maxDistance) / CELL_SIZE);
+            int maxCx = (int) Math.floor((Math.max(ax, bx) + maxDistance) / CELL_SIZE);
+            int minCz = (int) Math.floor((Math.min(az, bz) - maxDistance) / CELL_SIZE);
+            int maxCz = (int) Math.floor((Math.max(az, bz) + maxDistance) / CELL_SIZE);
+
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cz = minCz; cz <= maxCz; cz++) {
+                    double centerX = cx * (double) CELL_SIZE + CELL_SIZE / 2.0;
+                    double centerZ = cz * (double) CELL_SIZE + CELL_SIZE / 2.0;
+                    if (distanceSq(centerX, centerZ, ax, az, bx, bz) > cellReachSq) continue;
+                    building.computeIfAbsent(cellKey(cx, cz), k -> new IntArrayList(4)).add(i);
+                }
+            }
+        }
+
+        Long2ObjectOpenHashMap<int[]> cells = new Long2ObjectOpenHashMap<>(building.size());
+        for (Long2ObjectMap.Entry<IntArrayList> entry : building.long2ObjectEntrySet()) {
+            cells.put(entry.getLongKey(), entry.getValue().toIntArray());
+        }
+        cells.trim();
+
+        return new ConnectionGridIndex(cells, segments, highway, maxDistance, count);
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 查询位置附近的连接类型
+     *
+     * @return {@link #COMPLETED}、{@link #HIGHWAY} 的组合，不在任何已完成连接附近时为 0
+     */
+    public int query(BlockPos pos) {
+        if (segmentCount == 0) return 0;
+
+        int[] candidates = cells.get(cellKey(pos.getX() >> CELL_SHIFT, pos.getZ() >> CELL_SHIFT));
+        if (candidates == null) return 0;
+
+        double px = pos.getX(), pz = pos.getZ();
+        int flags = 0;
+        for (int index : candidates) {
+            int base = index * 4;
+            if (distanceSq(px, pz, segments[base], segments[base + 1], segments[base + 2], segments[base + 3])
+                    > maxDistanceSq) {
+                continue;
+            }
+            if (highway[index]) {
+                return COMPLETED | HIGHWAY;
+            }
+            flags = COMPLETED;
+        }
+        return flags;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    // ==================== 内部工具 ====================
+
+    /**
+     * 点到线段的水平距离平方（只考虑 XZ 平面）
+     */
+    private static double distanceSq(double px, double pz, double ax, double az, double bx, double bz) {
+        double dx = bx - ax, dz = bz - az;
+        double lenSq = dx * dx + dz * dz;
+        if (lenSq < 1.0) {
+            // 连接端点重合
+            return (px - ax) * (px - ax) + (pz - az) * (pz - az);
+        }
+
+        // 投影参数 t（限制在 [0, 1] 内）
+        double t = ((px - ax) * dx + (pz - az) * dz) / lenSq;
+        t = Math.max(0, Math.min(1, t));
+
+        double projX = ax + t * dx, projZ = az + t * dz;
+        return (px - projX) * (px - projX) + (pz - projZ) * (pz - projZ);
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
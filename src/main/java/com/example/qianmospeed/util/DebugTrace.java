@@ -0,0 +1,76 @@
+package com.example.qianmospeed.util;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.config.SpeedModConfig;
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.world.entity.player.Player;
+
+/**
+ * 调试追踪
+ * <p>
+ * 检测器和 tick 处理器的调试输出都经过这里：
+ * <ul>
+ * <li>{@link #enabled()} 只读配置快照字段，调试关闭时热路径上的守卫几乎没有开销；</li>
+ * <li>{@link #samplePlayer} 按玩家错开采样，逐 tick 的日志每名玩家每 N tick 只输出一次；</li>
+ * <li>{@link #log} 受每秒行数上限约束，超出部分丢弃，并在下一秒汇总丢弃数量。</li>
+ * </ul>
+ * 参数只在守卫通过后才构造，调用方应写成 {@code if (DebugTrace.enabled()) DebugTrace.log(...)}。
+ */
+public final class DebugTrace {
+    // 配置快照（配置加载/重载时刷新）
+    private static volatile int sampleInterval = 20;
+    private static volatile int maxLinesPerSecond = 200;
+
+    // 当前一秒的窗口（只在调试开启时更新）
+    private static long windowSecond = 0;
+    private static int windowLines = 0;
+    private static int droppedLines = 0;
+
+    private DebugTrace() {
+    }
+
+    public static void refresh() {
+        sampleInterval = SpeedModConfig.getDebugSampleInterval();
+        maxLinesPerSecond = SpeedModConfig.getDebugMaxLinesPerSecond();
+    }
+
+    public static boolean enabled() {
+        return SpeedModConfig.isDebugMessagesEnabled();
+    }
+
+    /**
+     * 本 tick 是否输出该玩家的逐 tick 日志（按 UUID 错开相位，每名玩家每 N tick 一次）
+     */
+    public static boolean samplePlayer(Player player, int tick) {
+        if (!SpeedModConfig.isDebugMessagesEnabled()) return false;
+        int phase = HashCommon.mix(player.getUUID().hashCode());
+        return Math.floorMod(tick + phase, sampleInterval) == 0;
+    }
+
+    /**
+     * 输出一行调试日志（超过每秒上限时丢弃）
+     */
+    public static void log(String format, Object... args) {
+        if (!SpeedModConfig.isDebugMessagesEnabled()) return;
+        if (!acquire()) return;
+        QianmoSpeedMod.LOGGER.debug(format, args);
+    }
+
+    private static synchronized boolean acquire() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != windowSecond) {
+            if (droppedLines > 0) {
+                QianmoSpeedMod.LOGGER.debug("【调试追踪】上一秒超出 {} 行上限，丢弃 {} 行", maxLinesPerSecond, droppedLines);
+            }
+            windowSecond = second;
+            windowLines = 0;
+            droppedLines = 0;
+        }
+        if (windowLines >= maxLinesPerSecond) {
+            droppedLines++;
+            return false;
+        }
+        windowLines++;
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.qianmospeed.util;
+
+import net.minecraft.nbt.Tag;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * RoadData NBT BLOB 流式扫描器
+ * <p>
+ * 直接在 GZIP 解压流上按 NBT 二进制格式前进，只进入 road → placements[] → positions[] 路径，
+ * 把每个 [x, y, z] 整数数组交给回调，其余标签原地跳过，不构建 CompoundTag 树，也不生成 BlockPos。
+ * <p>
+ * 实例持有可复用的名称缓冲区，非线程安全，每个加载线程各用一个。
+ */
+public final class RoadDataBlobScanner {
+    private static final byte[] KEY_ROAD = "road".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_PLACEMENTS = "placements".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_POSITIONS = "positions".getBytes(StandardCharsets.UTF_8);
+
+    // 与原版 NBT 读取器一致的嵌套深度上限
+    private static final int MAX_DEPTH = 512;
+
+    /**
+     * 道路段位置回调
+     */
+    @FunctionalInterface
+    public interface PositionSink {
+        void accept(int x, int y, int z);
+    }
+
+    private byte[] nameBuffer = new byte[64];
+    private int nameLength;
+    private final byte[] skipBuffer = new byte[4096];
+
+    /**
+     * 扫描一个 GZIP 压缩的 RoadData BLOB
+     *
+     * @return 输出的位置数量
+     */
+    public int scan(byte[] blob, PositionSink sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(blob), 8192), 8192))) {
+            // 根标签：类型 + 名称 + 复合标签内容
+            if (in.readByte() != Tag.TAG_COMPOUND) return 0;
+            skipName(in);
+            return scanRoot(in, sink);
+        }
+    }
+
+    // ==================== 路径匹配 ====================
+
+    /**
+     * 根复合标签：寻找 road
+     */
+    private int scanRoot(DataInputStream in, PositionSink sink) throws IOException {
+        int count = 0;
+        byte type;
+        while ((type = in.readByte()) != Tag.TAG_END) {
+            readName(in);
+            if (type == Tag.TAG_COMPOUND && nameEquals(KEY_ROAD)) {
+                count += scanRoad(in, sink);
+            } else {
+                skipPayload(in, type, 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * road 复合标签：寻找 placements 列表
+     */
+    private int scanRoad(DataInputStream in, PositionSink sink) throws IOException {
+        int count = 0;
+        byte type;
+        while ((type = in.readByte()) != Tag.TAG_END) {
+            readName(in);
+            if (type == Tag.TAG_LIST && nameEquals(KEY_PLACEMENTS)) {
+                byte elementType = in.readByte();
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    if (elementType == Tag.TAG_COMPOUND) {
+                        count += scanPlacement(in, sink);
+                    } else {
+                        skipPayload(in, elementType, 1);
+                    }
+                }
+            } else {
+                skipPayload(in, type, 1);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 单个 placement 复合标签：读取 positions 列表中的整数数组
+     */
+    private int scanPlacement(DataInputStream in, PositionSink sink) throws IOException {
+        int count = 0;
+        byte type;
+        while ((type = in.readByte()) != Tag.TAG_END) {
+            readName(in);
+            if (type == Tag.TAG_LIST && nameEquals(KEY_POSITIONS)) {
+                byte elementType = in.readByte();
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    if (elementType != Tag.TAG_INT_ARRAY) {
+                        skipPayload(in, elementType, 2);
+                        continue;
+                    }
+                    int length = in.readInt();
+                    if (length >= 3) {
+                        sink.accept(in.readInt(), in.readInt(), in.readInt());
+                        count++;
+                        skipFully(in, (length - 3) * 4L);
+                    } else {
+                        skipFully(in, Math.max(0, length) * 4L);
+                    }
+                }
+            } else {
+                skipPayload(in, type, 2);
+            }
+        }
+        return count;
+    }
+
+    // ==================== 跳过 ====================
+
+    private void skipPayload(DataInputStream in, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT 嵌套过深");
+        }
+        switch (type) {
+            case Tag.TAG_BYTE -> skipFully(in, 1);
+            case Tag.TAG_SHORT -> skipFully(in, 2);
+            case Tag.TAG_INT, Tag.TAG_FLOAT -> skipFully(in, 4);
+            case Tag.TAG_LONG, Tag.TAG_DOUBLE -> skipFully(in, 8);
+            case Tag.TAG_BYTE_ARRAY -> skipFully(in, Math.max(0, in.readInt()));
+            case Tag.TAG_STRING -> skipFully(in, in.readUnsignedShort());
+            case Tag.TAG_INT_ARRAY -> skipFully(in, Math.max(0, in.readInt()) * 4L);
+            case Tag.TAG_LONG_ARRAY -> skipFully(in, Math.max(0, in.readInt()) * 8L);
+            case Tag.TAG_LIST -> {
+                byte elementType = in.readByte();
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    skipPayload(in, elementType, depth + 1);
+                }
+            }
+            case Tag.TAG_COMPOUND -> {
+                byte child;
+                while ((child = in.readByte()) != Tag.TAG_END) {
+                    skipName(in);
+                    skipPayload(in, child, depth + 1);
+                }
+            }
+            case Tag.TAG_END -> {
+            }
+            default -> throw new IOException("未知的 NBT 标签类型: " + type);
+        }
+    }
+
+    private void skipFully(DataInputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            int chunk = (int) Math.min(bytes, skipBuffer.length);
+            in.readFully(skipBuffer, 0, chunk);
+            bytes -= chunk;
+        }
+    }
+
+    // ==================== 名称 ====================
+
+    private void readName(DataInputStream in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length > nameBuffer.length) {
+            nameBuffer = new byte[length];
+        }
+        in.readFully(nameBuffer, 0, length);
+        nameLength = length;
+    }
+
+    private void skipName(DataInputStream in) throws IOException {
+        skipFully(in, in.readUnsignedShort());
+    }
+
+    /**
+     * 比较最近读取的名称（键名均为 ASCII，修改版 UTF-8 与 UTF-8 编码一致）
+     */
+    private boolean nameEquals(byte[] key) {
+        if (nameLength != key.length) return false;
+        for (int i = 0; i < nameLength; i++) {
+            if (nameBuffer[i] != key[i]) return false;
+        }
+        return true;
+    }
+}
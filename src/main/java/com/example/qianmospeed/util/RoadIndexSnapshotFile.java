@@ -0,0 +1,248 @@
+package com.example.qianmospeed.util;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.config.SpeedModConfig;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RoadWeaver 派生索引的磁盘快照
+ * <p>
+ * 把规划区块、规划中心、连接列表和道路段位置索引写入
+ * &lt;world&gt;/data/qianmospeed/roadweaver_&lt;dim&gt;.bin，服务器启动后一次性读入堆缓冲区再解析回索引，
+ * 源文件（SavedData / H2 数据库）修改时间不一致或版本不符时视为无效，回退到完整解析。
+ * 连接网格索引读回后按连接列表重建（只与连接数量相关，开销很小）。
+ * <p>
+ * 只在后台加载线程上读写。
+ */
+final class RoadIndexSnapshotFile {
+    private static final int MAGIC = 0x514D5249; // "QMRI"
+    private static final int VERSION = 2;
+    private static final String DIR_NAME = "qianmospeed";
+
+    private RoadIndexSnapshotFile() {
+    }
+
+    static Path getFile(Path worldRoot, ResourceLocation dimension) {
+        String dimKey = dimension.toString().replace(':', '_');
+        return worldRoot.resolve("data").resolve(DIR_NAME).resolve("roadweaver_" + dimKey + ".bin");
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 读取快照；文件不存在、损坏或与源文件修改时间不一致时返回 null
+     *
+     * @param savedDataModified SavedData 文件当前修改时间（-1 表示不存在）
+     * @param segmentModified   H2 数据库当前修改时间；不校验道路段时传 {@link Long#MIN_VALUE}
+     */
+    static RoadWeaverH2Helper.WorldDataCache read(Path file, long savedDataModified, long segmentModified,
+            double connectionNearDistance) {
+        if (!Files.isRegularFile(file)) return null;
+
+        try {
+            ByteBuffer buffer = readFully(file);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+
+            long storedSavedData = buffer.getLong();
+            long storedSegment = buffer.getLong();
+            if (storedSavedData != savedDataModified) return null;
+            if (segmentModified != Long.MIN_VALUE && storedSegment != segmentModified) return null;
+
+            RoadWeaverH2Helper.WorldDataCache cache = new RoadWeaverH2Helper.WorldDataCache();
+            cache.savedDataModified = storedSavedData;
+            cache.segmentSourceModified = storedSegment;
+            cache.segmentMaxRowId = buffer.getLong();
+            cache.segmentRowCount = buffer.getLong();
+            cache.segmentChecksum = buffer.getLong();
+
+            // 规划区块
+            int plannedCount = checkedCount(buffer.getInt(), buffer.remaining(), 8);
+            LongOpenHashSet planned = new LongOpenHashSet(plannedCount);
+            for (int i = 0; i < plannedCount; i++) {
+                planned.add(buffer.getLong());
+            }
+            cache.plannedChunks = planned;
+
+            // 规划中心
+            int centerCount = checkedCount(buffer.getInt(), buffer.remaining(), 16);
+            Long2LongOpenHashMap centers = new Long2LongOpenHashMap(centerCount);
+            for (int i = 0; i < centerCount; i++) {
+                centers.put(buffer.getLong(), buffer.getLong());
+            }
+            cache.plannedCenters = centers;
+
+            // 连接
+            cache.connections = readConnections(buffer, false);
+            cache.highwayConnections = readConnections(buffer, true);
+            cache.connectionIndex = ConnectionGridIndex.build(
+                    cache.connections, cache.highwayConnections, connectionNearDistance);
+
+            // 道路段位置
+            int chunkCount = checkedCount(buffer.getInt(), buffer.remaining(), 12);
+            Long2ObjectOpenHashMap<long[]> chunks = new Long2ObjectOpenHashMap<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                long chunkKey = buffer.getLong();
+                long[] positions = new long[checkedCount(buffer.getInt(), buffer.remaining(), 8)];
+                buffer.asLongBuffer().get(positions);
+                buffer.position(buffer.position() + positions.length * 8);
+                chunks.put(chunkKey, positions);
+            }
+            cache.roadSegments = RoadSegmentIndex.fromSortedChunks(chunks);
+
+            return cache;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            if (SpeedModConfig.isDebugMessagesEnabled()) {
+                QianmoSpeedMod.LOGGER.debug("读取道路索引快照失败，将重新解析: {}", e.toString());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 把整个文件读入堆缓冲区（索引最终都要复制进堆上的集合，映射文件没有收益，还会在 Windows 上锁住文件）
+     */
+    private static ByteBuffer readFully(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("快照文件过大: " + size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static List<RoadWeaverH2Helper.StructureConnection> readConnections(ByteBuffer buffer,
+            boolean isHighway) {
+        int count = checkedCount(buffer.getInt(), buffer.remaining(), 26);
+        List<RoadWeaverH2Helper.StructureConnection> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BlockPos from = new BlockPos(buffer.getInt(), buffer.getInt(), buffer.getInt());
+            BlockPos to = new BlockPos(buffer.getInt(), buffer.getInt(), buffer.getInt());
+            byte[] status = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(status);
+            list.add(new RoadWeaverH2Helper.StructureConnection(
+                    from, to, new String(status, StandardCharsets.UTF_8), isHighway));
+        }
+        return list;
+    }
+
+    /**
+     * 校验元素数量不超过剩余字节，防止损坏文件导致超大分配
+     */
+    private static int checkedCount(int count, int remaining, int minBytesEach) {
+        if (count < 0 || (long) count * minBytesEach > remaining) {
+            throw new IllegalArgumentException("快照文件数据长度无效: " + count);
+        }
+        return count;
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 写出快照（先写临时文件再替换，失败时只记录日志）
+     */
+    static void write(Path file, RoadWeaverH2Helper.WorldDataCache cache) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(cache.savedDataModified);
+                out.writeLong(cache.segmentSourceModified);
+                out.writeLong(cache.segmentMaxRowId);
+                out.writeLong(cache.segmentRowCount);
+                out.writeLong(cache.segmentChecksum);
+
+                out.writeInt(cache.plannedChunks.size());
+                for (LongIterator it = cache.plannedChunks.iterator(); it.hasNext(); ) {
+                    out.writeLong(it.nextLong());
+                }
+
+                out.writeInt(cache.plannedCenters.size());
+                for (Long2LongMap.Entry entry : cache.plannedCenters.long2LongEntrySet()) {
+                    out.writeLong(entry.getLongKey());
+                    out.writeLong(entry.getLongValue());
+                }
+
+                writeConnections(out, cache.connections);
+                writeConnections(out, cache.highwayConnections);
+
+                Long2ObjectOpenHashMap<long[]> chunks = cache.roadSegments.chunks();
+                out.writeInt(chunks.size());
+                for (Long2ObjectMap.Entry<long[]> entry : chunks.long2ObjectEntrySet()) {
+                    out.writeLong(entry.getLongKey());
+                    long[] positions = entry.getValue();
+                    out.writeInt(positions.length);
+                    for (long position : positions) {
+                        out.writeLong(position);
+                    }
+                }
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (SpeedModConfig.isDebugMessagesEnabled()) {
+                QianmoSpeedMod.LOGGER.debug("道路索引快照已写入: {} ({} KB)", file, Files.size(file) / 1024);
+            }
+        } catch (IOException e) {
+            // 目标文件被其他进程占用等情况下无法替换，下次刷新再写
+            if (SpeedModConfig.isDebugMessagesEnabled()) {
+                QianmoSpeedMod.LOGGER.debug("写入道路索引快照失败: {}", e.toString());
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void writeConnections(DataOutputStream out, List<RoadWeaverH2Helper.StructureConnection> list)
+            throws IOException {
+        out.writeInt(list.size());
+        for (RoadWeaverH2Helper.StructureConnection conn : list) {
+            out.writeInt(conn.from.getX());
+            out.writeInt(conn.from.getY());
+            out.writeInt(conn.from.getZ());
+            out.writeInt(conn.to.getX());
+            out.writeInt(conn.to.getY());
+            out.writeInt(conn.to.getZ());
+            byte[] status = conn.status.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(status.length);
+            out.write(status);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.qianmospeed.util;
+
+import com.example.qianmospeed.QianmoSpeedMod;
+import com.example.qianmospeed.config.SpeedModConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoadData BLOB 并行解码器
+ * <p>
+ * 加载线程顺序读取 H2 结果集，把 BLOB 按批提交到有界 fork-join 线程池解压/扫描。
+ * 每个工作线程写入自己的局部索引构建器，全部批次完成后再合并进目标构建器，
+ * 解码过程中线程之间不共享可变状态。在途批次数有上限：读取快于解码时加载线程等待，
+ * 已读出未解码的 BLOB 最多 {@link #MAX_IN_FLIGHT} 批，不会把整张表的压缩数据堆在堆上。
+ * <p>
+ * 每次同步新建一个实例，只在一个加载线程上使用。
+ */
+final class RoadSegmentDecoder {
+    // 每批 BLOB 数量（批次太小调度开销明显，太大则负载不均）
+    private static final int BATCH_SIZE = 64;
+    // 解码线程数：留一个核心给服务器线程，最多 4 个
+    private static final int PARALLELISM =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    // 已提交但未完成的批次上限
+    private static final int MAX_IN_FLIGHT = PARALLELISM * 2;
+
+    private static ForkJoinPool pool = null;
+
+    /**
+     * 单个工作线程的局部状态
+     */
+    private static final class Worker {
+        final RoadDataBlobScanner scanner = new RoadDataBlobScanner();
+        final RoadSegmentIndex.Builder builder = RoadSegmentIndex.builder(null);
+    }
+
+    private final ForkJoinPool executor = getPool();
+    private final Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+    private final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private List<byte[]> batch = new ArrayList<>(BATCH_SIZE);
+
+    /**
+     * 加入一个待解码的 BLOB（攒满一批后提交）
+     */
+    void add(byte[] blob) {
+        batch.add(blob);
+        if (batch.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * 等待所有批次完成，并把各线程的局部结果合并进目标构建器
+     */
+    void finish(RoadSegmentIndex.Builder target) {
+        flush();
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        for (Worker worker : workers.values()) {
+            target.addAll(worker.builder);
+        }
+
+        if (SpeedModConfig.isDebugMessagesEnabled()) {
+            QianmoSpeedMod.LOGGER.debug("道路段 BLOB 解码完成: {} 批, {} 个线程参与", tasks.size(), workers.size());
+        }
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) return;
+        List<byte[]> blobs = batch;
+        batch = new ArrayList<>(BATCH_SIZE);
+        acquirePermit();
+        try {
+            tasks.add(executor.submit(() -> decode(blobs)));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 等待一个在途名额；线程池已关闭（服务器停止）时排队的批次不会再执行，放弃等待
+     */
+    private void acquirePermit() {
+        try {
+            while (!inFlight.tryAcquire(1, TimeUnit.SECONDS)) {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("道路段解码线程池已关闭");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待道路段解码名额时被中断", e);
+        }
+    }
+
+    private void decode(List<byte[]> blobs) {
+        try {
+            Worker worker = workers.computeIfAbsent(Thread.currentThread(), t -> new Worker());
+            for (byte[] blob : blobs) {
+                decodeBlob(blob, worker);
+            }
+        } finally {
+            // 已完成的任务仍被 tasks 引用，先释放批次中的 BLOB
+            blobs.clear();
+            inFlight.release();
+        }
+    }
+
+    /**
+     * 解析 RoadData NBT BLOB，提取道路段位置
+     * RoadData 序列化格式：
+     * {road: {placements: [{middle_pos: [x,y,z], positions: [[x,y,z],...]}, ...]}}
+     */
+    private static void decodeBlob(byte[] blob, Worker worker) {
+        try {
+            worker.scanner.scan(blob, worker.builder::add);
+        } catch (Exception e) {
+            if (SpeedModConfig.isDebugMessagesEnabled()) {
+                QianmoSpeedMod.LOGGER.debug("解析 RoadData BLOB 失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    // ==================== 线程池管理 ====================
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(PARALLELISM, p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("QianmoSpeed-RoadWeaver-Decoder-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                // 默认工厂使用系统类加载器，换成模组类加载器
+                thread.setContextClassLoader(RoadSegmentDecoder.class.getClassLoader());
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    static synchronized void shutdownPool() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+}
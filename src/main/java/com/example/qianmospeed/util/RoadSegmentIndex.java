@@ -0,0 +1,176 @@
+package com.example.qianmospeed.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Arrays;
+
+/**
+ * RoadWeaver 道路段位置索引（按区块存储有序 long 数组）
+ * <p>
+ * 每个区块一个升序、去重的 {@link BlockPos#asLong} 数组，查询为一次区块表查找加一次二分查找，
+ * 不产生任何对象。构建后不可变；增量合并时未变化区块的数组与旧索引共享。
+ */
+public final class RoadSegmentIndex {
+    public static final RoadSegmentIndex EMPTY = new RoadSegmentIndex(new Long2ObjectOpenHashMap<>(), 0);
+
+    private final Long2ObjectOpenHashMap<long[]> chunks;
+    private final long positionCount;
+
+    private RoadSegmentIndex(Long2ObjectOpenHashMap<long[]> chunks, long positionCount) {
+        this.chunks = chunks;
+        this.positionCount = positionCount;
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 指定位置是否为道路段方块
+     */
+    public boolean contains(BlockPos pos) {
+        long[] positions = chunks.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        return positions != null && Arrays.binarySearch(positions, pos.asLong()) >= 0;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    public long getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * 估算堆内存占用（字节）：区块表的键/值数组加每个区块的 long 数组
+     */
+    public long estimateMemoryBytes() {
+        // 开放寻址表：容量约为元素数 / 0.75，键 8 字节 + 值引用 4 字节
+        long table = (long) (chunks.size() / 0.75f) * 12 + 64;
+        long arrays = (long) chunks.size() * 16 + positionCount * 8;
+        return table + arrays;
+    }
+
+    // ==================== 持久化支持 ====================
+
+    /**
+     * 区块表（只读，供快照文件写出）
+     */
+    Long2ObjectOpenHashMap<long[]> chunks() {
+        return chunks;
+    }
+
+    /**
+     * 由已排序去重的区块数组直接构建（快照文件读入）
+     */
+    static RoadSegmentIndex fromSortedChunks(Long2ObjectOpenHashMap<long[]> chunks) {
+        if (chunks.isEmpty()) return EMPTY;
+        long count = 0;
+        for (long[] positions : chunks.values()) {
+            count += positions.length;
+        }
+        return new RoadSegmentIndex(chunks, count);
+    }
+
+    // ==================== 构建 ====================
+
+    /**
+     * 新建构建器；base 不为空时在其基础上合并（增量同步）
+     */
+    public static Builder builder(RoadSegmentIndex base) {
+        return new Builder(base);
+    }
+
+    /**
+     * 索引构建器（非线程安全，每个加载线程各用一个）
+     */
+    public static final class Builder {
+        private final RoadSegmentIndex base;
+        // 待合并的新位置（未排序，可能重复）
+        private final Long2ObjectOpenHashMap<LongArrayList> pending = new Long2ObjectOpenHashMap<>();
+
+        private Builder(RoadSegmentIndex base) {
+            this.base = base != null ? base : EMPTY;
+        }
+
+        public void add(int x, int y, int z) {
+            long chunkKey = ChunkPos.asLong(x >> 4, z >> 4);
+            LongArrayList list = pending.get(chunkKey);
+            if (list == null) {
+                list = new LongArrayList();
+                pending.put(chunkKey, list);
+            }
+            list.add(BlockPos.asLong(x, y, z));
+        }
+
+        /**
+         * 并入另一个构建器收集的位置（另一个构建器之后不应再使用）
+         */
+        public void addAll(Builder other) {
+            for (Long2ObjectMap.Entry<LongArrayList> entry : other.pending.long2ObjectEntrySet()) {
+                LongArrayList list = pending.get(entry.getLongKey());
+                if (list == null) {
+                    pending.put(entry.getLongKey(), entry.getValue());
+                } else {
+                    list.addAll(entry.getValue());
+                }
+            }
+        }
+
+        public boolean isEmpty() {
+            return pending.isEmpty();
+        }
+
+        public RoadSegmentIndex build() {
+            if (pending.isEmpty()) return base;
+
+            Long2ObjectOpenHashMap<long[]> chunks = new Long2ObjectOpenHashMap<>(base.chunks);
+            long count = base.positionCount;
+
+            for (Long2ObjectMap.Entry<LongArrayList> entry : pending.long2ObjectEntrySet()) {
+                long chunkKey = entry.getLongKey();
+                long[] added = sortedUnique(entry.getValue().toLongArray());
+                long[] existing = chunks.get(chunkKey);
+                long[] merged = existing == null ? added : mergeSorted(existing, added);
+                count += merged.length - (existing == null ? 0 : existing.length);
+                chunks.put(chunkKey, merged);
+            }
+
+            chunks.trim();
+            return new RoadSegmentIndex(chunks, count);
+        }
+
+        private static long[] sortedUnique(long[] values) {
+            Arrays.sort(values);
+            int n = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (i == 0 || values[i] != values[n - 1]) {
+                    values[n++] = values[i];
+                }
+            }
+            return n == values.length ? values : Arrays.copyOf(values, n);
+        }
+
+        private static long[] mergeSorted(long[] a, long[] b) {
+            long[] out = new long[a.length + b.length];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                long next;
+                if (a[i] < b[j]) {
+                    next = a[i++];
+                } else if (a[i] > b[j]) {
+                    next = b[j++];
+                } else {
+                    next = a[i++];
+                    j++;
+                }
+                out[n++] = next;
+            }
+            while (i < a.length) out[n++] = a[i++];
+            while (j < b.length) out[n++] = b[j++];
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+    }
+}
@@ -2,13 +2,21 @@ package com.example.qianmospeed.util;
 
 import com.example.qianmospeed.QianmoSpeedMod;
 import com.example.qianmospeed.config.SpeedModConfig;
+import com.example.qianmospeed.metrics.ModMetrics;
+import com.example.qianmospeed.road.RoadRunIndex;
+import com.example.qianmospeed.road.RoadSurfaceCache;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.*;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.storage.LevelResource;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.sql.*;
 import java.nio.file.Files;
@@ -16,6 +24,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * RoadWeaver 双数据源读取器（阡陌交通集成）
@@ -27,6 +39,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * </ul>
  * <p>
  * 不依赖 RoadWeaver 编译时依赖，全部通过原生 NBT/H2 方式读取。
+ * 数据在后台线程加载为不可变快照后原子替换，查询始终读取当前快照，不阻塞服务器线程。
  * 可通过配置开关 {@code enableRoadWeaverIntegration} 禁用。
  */
 public class RoadWeaverH2Helper {
@@ -49,23 +62,93 @@ public class RoadWeaverH2Helper {
     private static boolean initialized = false;
 
     // 缓存
-    private static final Map<String, WorldDataCache> WORLD_CACHE = new ConcurrentHashMap<>();
+    // 以维度 ResourceKey 为键（实例全局唯一，查询时不需要拼接字符串）
+    private static final Map<ResourceKey<Level>, DimensionData> WORLD_CACHE = new ConcurrentHashMap<>();
     private static final long CACHE_TTL = 5 * 60 * 1000; // 5分钟
+    private static final long RELOAD_RETRY_DELAY = 30 * 1000; // 加载失败后 30 秒再试
+    // 连续增量同步若干次后校验一次全表内容指纹（发现原地修改），不一致时全量重载
+    private static final int FULL_SYNC_INTERVAL = 6;
+    // 数据库是否支持 ORA_HASH（旧版 H2 不支持时行指纹只统计数据长度）
+    private static volatile boolean rowHashSupported = true;
+
+    // 后台加载线程（单线程，按需创建）
+    private static ExecutorService loaderExecutor = null;
+    // 每次后台加载（磁盘快照或源文件）的总耗时
+    private static final TimingProfiler.Timer LOAD_PROFILE = TimingProfiler.timer("roadweaver.load");
+    // 判定"在连接上"的最大水平距离
+    static final double CONNECTION_NEAR_DISTANCE = 300;
+
+    // 综合判定结果（只返回优先级最高的一项）
+    public static final int ROAD_NONE = 0;
+    public static final int ROAD_PLANNED = 1;
+    public static final int ROAD_SEGMENT = 2;
+    public static final int ROAD_COMPLETED = 3;
+    public static final int ROAD_HIGHWAY = 4;
 
     // ==================== 内部缓存类 ====================
-    private static class WorldDataCache {
-        final Set<Long> plannedChunks = new HashSet<>();
-        final Map<Long, Long> plannedCenters = new HashMap<>();
-        final List<StructureConnection> connections = new ArrayList<>();
-        final List<StructureConnection> highwayConnections = new ArrayList<>();
+
+    /**
+     * 单个维度的数据快照：由后台线程填充，发布后不再修改
+     * <p>
+     * SavedData 或 H2 未变化时，新快照直接共享上一快照的对应集合，因此集合本身同样不可修改。
+     */
+    static class WorldDataCache {
+        static final WorldDataCache EMPTY = new WorldDataCache();
+
+        // 原始 long 集合：热路径查询不装箱
+        LongOpenHashSet plannedChunks = new LongOpenHashSet();
+        Long2LongOpenHashMap plannedCenters = new Long2LongOpenHashMap();
+        List<StructureConnection> connections = new ArrayList<>();
+        List<StructureConnection> highwayConnections = new ArrayList<>();
         final Map<Long, Long> highwayIntersections = new HashMap<>();
-        // 道路段空间索引（按区块缓存 road segment positions）
-        final Map<Long, Set<BlockPos>> roadSegmentPositions = new HashMap<>();
+        // 已完成连接的网格索引（随 SavedData 一起重建）
+        ConnectionGridIndex connectionIndex = ConnectionGridIndex.EMPTY;
+        // SavedData 文件修改时间（-1 表示文件不存在或尚未加载）
+        long savedDataModified = -1;
+        // 道路段位置索引（按区块存储有序 long 数组，增量同步时与上一快照共享未变化区块）
+        RoadSegmentIndex roadSegments = RoadSegmentIndex.EMPTY;
+        // H2 同步水位：数据库文件修改时间、已读取的最大行号、行数与行指纹校验和（-1 表示尚未从 H2 加载）
+        long segmentSourceModified = -1;
+        long segmentMaxRowId = -1;
+        long segmentRowCount = 0;
+        long segmentChecksum = 0;
+        int incrementalSyncs = 0;
+        // 本次读取 H2 失败、道路段沿用了上一快照（数据库被 RoadWeaver 锁定等），需要尽快重试
+        boolean segmentRetryNeeded = false;
         long lastUpdateTime = 0;
 
         boolean isExpired() {
             return System.currentTimeMillis() - lastUpdateTime > CACHE_TTL;
         }
+
+        /**
+         * 按优先级判定位置所属的道路类型：公路 > 已完成连接 > 道路段 > 规划区块
+         */
+        int queryRoad(BlockPos pos) {
+            int connectionFlags = connectionIndex.query(pos);
+            if ((connectionFlags & ConnectionGridIndex.HIGHWAY) != 0) return ROAD_HIGHWAY;
+            if ((connectionFlags & ConnectionGridIndex.COMPLETED) != 0) return ROAD_COMPLETED;
+            if (roadSegments.contains(pos)) return ROAD_SEGMENT;
+            if (plannedChunks.contains(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4))) return ROAD_PLANNED;
+            return ROAD_NONE;
+        }
+    }
+
+    /**
+     * 单个维度的快照持有者与加载状态
+     */
+    private static class DimensionData {
+        final AtomicReference<WorldDataCache> snapshot = new AtomicReference<>(WorldDataCache.EMPTY);
+        final AtomicBoolean loading = new AtomicBoolean(false);
+        // 被要求刷新（维度切换等）；刷新期间继续使用旧快照
+        volatile boolean stale = false;
+        volatile long nextRetryTime = 0;
+        // 最近一次成功加载的耗时（-1 表示尚未加载）
+        volatile long lastLoadNanos = -1;
+
+        boolean needsReload() {
+            return stale || snapshot.get().isExpired();
+        }
     }
 
     /**
@@ -122,6 +205,13 @@ public class RoadWeaverH2Helper {
     }
 
     public static void shutdown() {
+        synchronized (RoadWeaverH2Helper.class) {
+            if (loaderExecutor != null) {
+                loaderExecutor.shutdownNow();
+                loaderExecutor = null;
+            }
+        }
+        RoadSegmentDecoder.shutdownPool();
         WORLD_CACHE.clear();
         h2Available = false;
         savedDataAvailable = false;
@@ -141,15 +231,8 @@ public class RoadWeaverH2Helper {
      * 
      * 文件路径：&lt;world&gt;/dimensions/&lt;ns&gt;/&lt;path&gt;/data/roadweaver_world_data.dat
      */
-    private static CompoundTag getSavedData(ServerLevel level) {
+    private static CompoundTag getSavedData(Path dataFile) {
         try {
-            // 构建维度数据目录路径
-            Path worldRoot = level.getServer().getWorldPath(LevelResource.ROOT);
-            String ns = level.dimension().location().getNamespace();
-            String path = level.dimension().location().getPath();
-            Path dataFile = worldRoot.resolve("dimensions").resolve(ns).resolve(path)
-                    .resolve("data").resolve(SAVED_DATA_KEY + ".dat");
-
             if (!Files.exists(dataFile)) {
                 return null;
             }
@@ -162,20 +245,32 @@ public class RoadWeaverH2Helper {
         }
     }
 
+    private static Path getSavedDataFile(Path worldRoot, ResourceLocation dimension) {
+        // 构建维度数据目录路径
+        String ns = dimension.getNamespace();
+        String path = dimension.getPath();
+        return worldRoot.resolve("dimensions").resolve(ns).resolve(path)
+                .resolve("data").resolve(SAVED_DATA_KEY + ".dat");
+    }
+
     // ==================== 核心API 1: 规划区块 ====================
 
     public static boolean isPlannedChunk(ServerLevel level, ChunkPos chunk) {
+        return isPlannedChunk(level, chunk.x, chunk.z);
+    }
+
+    public static boolean isPlannedChunk(ServerLevel level, int chunkX, int chunkZ) {
         if (!savedDataAvailable) return false;
         WorldDataCache cache = getWorldCache(level);
-        return cache != null && cache.plannedChunks.contains(ChunkPos.asLong(chunk.x, chunk.z));
+        return cache != null && cache.plannedChunks.contains(ChunkPos.asLong(chunkX, chunkZ));
     }
 
     public static BlockPos getPlannedCenter(ServerLevel level, ChunkPos chunk) {
         if (!savedDataAvailable) return null;
         WorldDataCache cache = getWorldCache(level);
         if (cache == null) return null;
-        Long center = cache.plannedCenters.get(ChunkPos.asLong(chunk.x, chunk.z));
-        return center != null ? BlockPos.of(center) : null;
+        long chunkKey = ChunkPos.asLong(chunk.x, chunk.z);
+        return cache.plannedCenters.containsKey(chunkKey) ? BlockPos.of(cache.plannedCenters.get(chunkKey)) : null;
     }
 
     public static Set<Long> getPlannedChunks(ServerLevel level) {
@@ -205,65 +300,29 @@ public class RoadWeaverH2Helper {
     }
 
     /**
-     * 判断指定位置是否在已完成的连接路段上（粗略判断，基于连接端点）
+     * 查询指定位置附近的已完成连接类型（一次网格查询同时得到公路/已完成道路标记）
+     *
+     * @return {@link ConnectionGridIndex#COMPLETED}、{@link ConnectionGridIndex#HIGHWAY} 的组合
      */
-    public static boolean isOnCompletedRoad(ServerLevel level, BlockPos pos) {
-        if (!savedDataAvailable) return false;
+    public static int getConnectionFlags(ServerLevel level, BlockPos pos) {
+        if (!savedDataAvailable) return 0;
         WorldDataCache cache = getWorldCache(level);
-        if (cache == null) return false;
-
-        // 检查普通道路连接
-        for (StructureConnection conn : cache.connections) {
-            if (!conn.isCompleted()) continue;
-            if (isPointNearLine(pos, conn.from, conn.to, 300)) return true;
-        }
-        // 检查公路连接
-        for (StructureConnection conn : cache.highwayConnections) {
-            if (!conn.isCompleted()) continue;
-            if (isPointNearLine(pos, conn.from, conn.to, 300)) return true;
-        }
-        return false;
+        if (cache == null) return 0;
+        return cache.connectionIndex.query(pos);
     }
 
     /**
-     * 判断指定位置是否在高速公路上
+     * 判断指定位置是否在已完成的连接路段上（粗略判断，基于连接端点）
      */
-    public static boolean isOnHighway(ServerLevel level, BlockPos pos) {
-        if (!savedDataAvailable) return false;
-        WorldDataCache cache = getWorldCache(level);
-        if (cache == null) return false;
-
-        for (StructureConnection conn : cache.highwayConnections) {
-            if (!conn.isCompleted()) continue;
-            if (isPointNearLine(pos, conn.from, conn.to, 300)) return true;
-        }
-        return false;
+    public static boolean isOnCompletedRoad(ServerLevel level, BlockPos pos) {
+        return (getConnectionFlags(level, pos) & ConnectionGridIndex.COMPLETED) != 0;
     }
 
     /**
-     * 判断点是否在两点连线的指定距离范围内
+     * 判断指定位置是否在高速公路上
      */
-    private static boolean isPointNearLine(BlockPos point, BlockPos lineStart, BlockPos lineEnd, double maxDistance) {
-        // 只考虑 XZ 平面
-        double px = point.getX(), pz = point.getZ();
-        double ax = lineStart.getX(), az = lineStart.getZ();
-        double bx = lineEnd.getX(), bz = lineEnd.getZ();
-
-        double dx = bx - ax, dz = bz - az;
-        double lenSq = dx * dx + dz * dz;
-        if (lenSq < 1.0) {
-            // 连接端点重合
-            double dist = Math.sqrt((px - ax) * (px - ax) + (pz - az) * (pz - az));
-            return dist <= maxDistance;
-        }
-
-        // 投影参数 t（限制在 [0, 1] 内）
-        double t = ((px - ax) * dx + (pz - az) * dz) / lenSq;
-        t = Math.max(0, Math.min(1, t));
-
-        double projX = ax + t * dx, projZ = az + t * dz;
-        double dist = Math.sqrt((px - projX) * (px - projX) + (pz - projZ) * (pz - projZ));
-        return dist <= maxDistance;
+    public static boolean isOnHighway(ServerLevel level, BlockPos pos) {
+        return (getConnectionFlags(level, pos) & ConnectionGridIndex.HIGHWAY) != 0;
     }
 
     // ==================== 核心API 3: 道路段精确数据 (H2) ====================
@@ -276,45 +335,186 @@ public class RoadWeaverH2Helper {
         WorldDataCache cache = getWorldCache(level);
         if (cache == null) return false;
 
-        long chunkKey = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
-        Set<BlockPos> positions = cache.roadSegmentPositions.get(chunkKey);
-        if (positions == null) return false;
-        return positions.contains(pos);
+        return cache.roadSegments.contains(pos);
+    }
+
+    // ==================== 核心API 4: 综合判定 ====================
+
+    /**
+     * 一次快照读取完成全部判定（连接网格、道路段、规划区块）
+     *
+     * @return {@link #ROAD_HIGHWAY}、{@link #ROAD_COMPLETED}、{@link #ROAD_SEGMENT}、{@link #ROAD_PLANNED} 或 {@link #ROAD_NONE}
+     */
+    public static int queryRoad(ServerLevel level, BlockPos pos) {
+        if (!isAvailable()) return ROAD_NONE;
+        WorldDataCache cache = getWorldCache(level);
+        return cache != null ? cache.queryRoad(pos) : ROAD_NONE;
     }
 
     // ==================== 缓存加载 ====================
+
+    /**
+     * 预加载维度数据（世界加载时调用，使首批玩家 tick 前就开始读取快照/解析）
+     */
+    public static void preload(ServerLevel level) {
+        if (!isAvailable()) return;
+        getWorldCache(level);
+    }
+
+    /**
+     * 获取维度当前的数据快照；过期时在后台刷新，本次仍返回旧快照（首次加载完成前为空快照）
+     */
     private static WorldDataCache getWorldCache(ServerLevel level) {
-        String dimension = level.dimension().location().toString();
-        WorldDataCache cache = WORLD_CACHE.computeIfAbsent(dimension, k -> new WorldDataCache());
-
-        if (cache.isExpired()) {
-            synchronized (cache) {
-                if (cache.isExpired()) {
-                    loadSavedData(level, cache);
-                    if (h2Available) {
-                        loadRoadSegments(level, cache);
+        DimensionData data = WORLD_CACHE.get(level.dimension());
+        if (data == null) {
+            data = WORLD_CACHE.computeIfAbsent(level.dimension(), k -> new DimensionData());
+        }
+
+        if (data.needsReload()
+                && System.currentTimeMillis() >= data.nextRetryTime
+                && data.loading.compareAndSet(false, true)) {
+            scheduleReload(level, data);
+        }
+        return data.snapshot.get();
+    }
+
+    /**
+     * 提交后台加载任务；只在服务器线程上读取世界路径，加载线程不接触 ServerLevel
+     */
+    private static void scheduleReload(ServerLevel level, DimensionData data) {
+        MinecraftServer server = level.getServer();
+        Path worldRoot = server.getWorldPath(LevelResource.ROOT);
+        ResourceLocation dimension = level.dimension().location();
+        boolean loadH2 = h2Available;
+        data.stale = false;
+
+        try {
+            getLoaderExecutor().execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    WorldDataCache previous = data.snapshot.get();
+                    Path snapshotFile = RoadIndexSnapshotFile.getFile(worldRoot, dimension);
+                    long savedDataModified = getLastModified(getSavedDataFile(worldRoot, dimension));
+                    long segmentModified = loadH2 ? getLastModified(getH2DatabaseFile(worldRoot, dimension)) : -1;
+
+                    // 首次加载：源文件未变化时直接使用磁盘快照
+                    WorldDataCache fresh = null;
+                    if (previous == WorldDataCache.EMPTY) {
+                        fresh = RoadIndexSnapshotFile.read(snapshotFile, savedDataModified,
+                                loadH2 ? segmentModified : Long.MIN_VALUE, CONNECTION_NEAR_DISTANCE);
+                    }
+
+                    // 快照内容是否与上一快照不同：SavedData 按修改时间判断（重新解析即视为变化），
+                    // 道路段按索引是否被替换判断（未变化或没有新行时原样共用上一快照的索引）
+                    boolean changed;
+                    if (fresh == null) {
+                        fresh = loadFromSources(worldRoot, dimension, previous, loadH2);
+                        changed = fresh.savedDataModified != previous.savedDataModified
+                                || fresh.roadSegments != previous.roadSegments;
+                        // 同步水位推进时更新磁盘快照（读取失败时沿用上一快照的水位，不写出）
+                        boolean sourcesAdvanced = fresh.savedDataModified != previous.savedDataModified
+                                || fresh.segmentSourceModified != previous.segmentSourceModified;
+                        if (sourcesAdvanced && (fresh.savedDataModified >= 0 || fresh.segmentSourceModified >= 0)) {
+                            RoadIndexSnapshotFile.write(snapshotFile, fresh);
+                        }
+                    } else {
+                        // 磁盘快照取代了空快照
+                        changed = true;
+                        if (SpeedModConfig.isDebugMessagesEnabled()) {
+                            QianmoSpeedMod.LOGGER.debug("使用道路索引磁盘快照: 维度={}, 规划区块={}, 道路段方块={}",
+                                    dimension, fresh.plannedChunks.size(), fresh.roadSegments.getPositionCount());
+                        }
                     }
+                    fresh.lastUpdateTime = System.currentTimeMillis();
+
+                    data.snapshot.set(fresh);
+                    if (fresh.segmentRetryNeeded) {
+                        // 不等快照过期，稍后再读一次 H2
+                        data.stale = true;
+                        data.nextRetryTime = System.currentTimeMillis() + RELOAD_RETRY_DELAY;
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    data.lastLoadNanos = elapsed;
+                    LOAD_PROFILE.record(elapsed);
+                    ModMetrics.ROADWEAVER_LOADS.increment();
+                    // 规划/道路段数据变化会影响判定结果，回到服务器线程清空判定缓存；
+                    // 数据变化通常意味着 RoadWeaver 刚建了路，连续长度索引的行也一并清空。
+                    // 数据未变化的定期重载不清空，避免每个刷新周期都丢掉全部缓存
+                    if (changed) {
+                        server.execute(() -> {
+                            RoadSurfaceCache.clearAll();
+                            RoadRunIndex.clearAll();
+                        });
+                    }
+
+                    if (SpeedModConfig.isDebugMessagesEnabled()) {
+                        QianmoSpeedMod.LOGGER.debug("阡陌交通数据快照已更新: 维度={}, 耗时={}ms",
+                                dimension, (System.nanoTime() - start) / 1_000_000);
+                    }
+                } catch (Exception e) {
+                    data.nextRetryTime = System.currentTimeMillis() + RELOAD_RETRY_DELAY;
+                    QianmoSpeedMod.LOGGER.warn("后台加载阡陌交通数据失败（维度 {}），继续使用旧数据: {}",
+                            dimension, e.toString());
+                } finally {
+                    data.loading.set(false);
                 }
-            }
+            });
+        } catch (RuntimeException e) {
+            // 执行器已关闭（服务器正在停止）
+            data.loading.set(false);
+        }
+    }
+
+    private static synchronized ExecutorService getLoaderExecutor() {
+        if (loaderExecutor == null) {
+            loaderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "QianmoSpeed-RoadWeaver-Loader");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
         }
-        return cache;
+        return loaderExecutor;
     }
 
     /**
-     * 从 Forge SavedData 加载规划数据和连接数据
+     * 从 SavedData 和 H2 源文件构建新快照（不经过磁盘快照，不接触 ServerLevel，可在任意线程调用）
+     *
+     * @param previous 上一快照，未变化的部分直接共享；首次加载传 {@link WorldDataCache#EMPTY}
+     * @param loadH2   是否同步 H2 道路段数据
      */
-    private static void loadSavedData(ServerLevel level, WorldDataCache cache) {
-        cache.plannedChunks.clear();
-        cache.plannedCenters.clear();
-        cache.connections.clear();
-        cache.highwayConnections.clear();
-        cache.highwayIntersections.clear();
-
-        CompoundTag tag = getSavedData(level);
+    static WorldDataCache loadFromSources(Path worldRoot, ResourceLocation dimension,
+            WorldDataCache previous, boolean loadH2) {
+        WorldDataCache fresh = new WorldDataCache();
+        loadSavedData(worldRoot, dimension, previous, fresh);
+        if (loadH2) {
+            loadRoadSegments(worldRoot, dimension, previous, fresh);
+        }
+        return fresh;
+    }
+
+    /**
+     * 从 Forge SavedData 加载规划数据和连接数据（文件未修改时沿用上一快照）
+     */
+    private static void loadSavedData(Path worldRoot, ResourceLocation dimension,
+            WorldDataCache previous, WorldDataCache cache) {
+        Path dataFile = getSavedDataFile(worldRoot, dimension);
+        long modified = getLastModified(dataFile);
+        if (modified >= 0 && modified == previous.savedDataModified) {
+            cache.plannedChunks = previous.plannedChunks;
+            cache.plannedCenters = previous.plannedCenters;
+            cache.connections = previous.connections;
+            cache.highwayConnections = previous.highwayConnections;
+            cache.connectionIndex = previous.connectionIndex;
+            cache.savedDataModified = modified;
+            return;
+        }
+
+        CompoundTag tag = getSavedData(dataFile);
         if (tag == null) {
-            cache.lastUpdateTime = System.currentTimeMillis();
             return;
         }
+        cache.savedDataModified = modified;
 
         // 1. 解析 planned_tiles (LongArray)
         if (tag.contains(KEY_PLANNED_TILES, Tag.TAG_LONG_ARRAY)) {
@@ -346,12 +546,15 @@ public class RoadWeaverH2Helper {
             parseConnectionList(tag.getList(KEY_HIGHWAY_CONNECTIONS, Tag.TAG_COMPOUND), cache.highwayConnections, true);
         }
 
-        cache.lastUpdateTime = System.currentTimeMillis();
+        // 5. 构建已完成连接的网格索引
+        cache.connectionIndex = ConnectionGridIndex.build(
+                cache.connections, cache.highwayConnections, CONNECTION_NEAR_DISTANCE);
 
         if (SpeedModConfig.isDebugMessagesEnabled()) {
-            QianmoSpeedMod.LOGGER.debug("加载阡陌交通数据: 维度={}, 规划区块={}, 连接={}, 公路={}",
-                    level.dimension().location(), cache.plannedChunks.size(),
-                    cache.connections.size(), cache.highwayConnections.size());
+            QianmoSpeedMod.LOGGER.debug("加载阡陌交通数据: 维度={}, 规划区块={}, 连接={}, 公路={}, 索引线段={}, 索引网格={}",
+                    dimension, cache.plannedChunks.size(),
+                    cache.connections.size(), cache.highwayConnections.size(),
+                    cache.connectionIndex.getSegmentCount(), cache.connectionIndex.getCellCount());
         }
     }
 
@@ -389,98 +592,213 @@ public class RoadWeaverH2Helper {
     // ==================== H2 道路段数据加载 ====================
 
     /**
-     * 从 H2 数据库加载道路段位置数据
+     * 从 H2 数据库同步道路段位置数据
+     * <p>
+     * 数据库文件未修改时直接沿用上一快照；只追加了新行时只读取行号高于水位的行并合并到
+     * 上一快照的索引中，每次刷新的开销与新行数成正比。水位以下的行数与上次不一致（有删除）时全量重载；
+     * 原地修改只有内容指纹（数据长度与哈希之和，在数据库内聚合，不传输数据）能发现，
+     * 指纹需要读取全部行，每 {@link #FULL_SYNC_INTERVAL} 次增量同步校验一次，不一致时全量重载。
      */
-    private static void loadRoadSegments(ServerLevel level, WorldDataCache cache) {
-        cache.roadSegmentPositions.clear();
-
-        try (Connection conn = getH2Connection(level)) {
-            if (conn == null) return;
-
-            String dimensionKey = level.dimension().location().toString();
-            // 尝试找到对应的数据库文件
-            String sql = "SELECT data FROM roads";
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-
-                while (rs.next()) {
-                    byte[] blob = rs.getBytes("data");
-                    if (blob == null) continue;
-                    parseRoadDataBlob(blob, cache);
+    private static void loadRoadSegments(Path worldRoot, ResourceLocation dimension,
+            WorldDataCache previous, WorldDataCache cache) {
+        Path dbFile = getH2DatabaseFile(worldRoot, dimension);
+        long modified = getLastModified(dbFile);
+        boolean hasPrevious = previous.segmentMaxRowId >= 0;
+
+        // 1. 文件未变化：沿用上一快照
+        if (hasPrevious && modified >= 0 && modified == previous.segmentSourceModified) {
+            copySegmentState(previous, cache);
+            if (SpeedModConfig.isDebugMessagesEnabled()) {
+                QianmoSpeedMod.LOGGER.debug("阡陌交通 roads 数据库未变化，跳过道路段同步");
+            }
+            return;
+        }
+
+        try (Connection conn = getH2Connection(dbFile)) {
+            if (conn == null) {
+                // 文件存在却无法连接（被 RoadWeaver 锁定等）：与读取失败同样处理
+                if (modified >= 0) {
+                    keepPreviousSegments(previous, cache);
                 }
+                return;
             }
 
+            // 2. 判断能否增量：水位以下的行数应与上次一致（没有删除）；
+            //    增量次数达到上限时再校验水位以下的内容指纹（没有原地修改）
+            boolean incremental = false;
+            boolean verified = false;
+            if (hasPrevious && countRows(conn, previous.segmentMaxRowId) == previous.segmentRowCount) {
+                if (previous.incrementalSyncs < FULL_SYNC_INTERVAL) {
+                    incremental = true;
+                } else {
+                    long[] fingerprint = fingerprintRows(conn, Long.MIN_VALUE, previous.segmentMaxRowId);
+                    incremental = fingerprint[1] == previous.segmentChecksum;
+                    verified = incremental;
+                }
+            }
+
+            long maxRowId;
+            long rowCount;
+            int newRows = 0;
+            // 增量时在上一快照的索引上合并，只重建被新行触及的区块
+            RoadSegmentIndex.Builder builder = RoadSegmentIndex.builder(incremental ? previous.roadSegments : null);
+            // 结果集在本线程顺序读取，BLOB 解码分发到并行解码线程
+            RoadSegmentDecoder decoder = new RoadSegmentDecoder();
+
+            if (incremental) {
+                maxRowId = previous.segmentMaxRowId;
+                rowCount = previous.segmentRowCount;
+            } else {
+                maxRowId = 0;
+                rowCount = 0;
+            }
+
+            String sql = "SELECT _ROWID_, data FROM roads WHERE _ROWID_ > ? ORDER BY _ROWID_";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, incremental ? previous.segmentMaxRowId : Long.MIN_VALUE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        maxRowId = Math.max(maxRowId, rs.getLong(1));
+                        rowCount++;
+                        newRows++;
+                        byte[] blob = rs.getBytes(2);
+                        if (blob == null) continue;
+                        decoder.add(blob);
+                    }
+                }
+            }
+            decoder.finish(builder);
+
+            cache.roadSegments = builder.build();
+
+            // 校验和可按行号区间累加：增量时只需聚合新读取的区间
+            long checksum = fingerprintRows(conn,
+                    incremental ? previous.segmentMaxRowId : Long.MIN_VALUE, maxRowId)[1];
+            cache.segmentSourceModified = modified;
+            cache.segmentMaxRowId = maxRowId;
+            cache.segmentRowCount = rowCount;
+            cache.segmentChecksum = incremental ? previous.segmentChecksum + checksum : checksum;
+            // 全量重载或刚校验过指纹后重新计数
+            cache.incrementalSyncs = incremental && !verified ? previous.incrementalSyncs + 1 : 0;
+
             if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("加载阡陌交通道路段数据: {} 个区块有道路段",
-                        cache.roadSegmentPositions.size());
+                QianmoSpeedMod.LOGGER.debug("同步阡陌交通道路段数据（{}）: 读取 {} 行, 共 {} 行, {} 个区块 {} 个道路段方块, 约 {} KB",
+                        incremental ? "增量" : "全量", newRows, rowCount,
+                        cache.roadSegments.getChunkCount(), cache.roadSegments.getPositionCount(),
+                        cache.roadSegments.estimateMemoryBytes() / 1024);
             }
 
         } catch (SQLException e) {
             if (SpeedModConfig.isDebugMessagesEnabled()) {
                 QianmoSpeedMod.LOGGER.debug("读取阡陌交通 roads 表失败: {}", e.getMessage());
             }
+            keepPreviousSegments(previous, cache);
         }
     }
 
     /**
-     * 解析 RoadData NBT BLOB，提取道路段位置
-     * RoadData 序列化格式：
-     * {road: {placements: [{middle_pos: [x,y,z], positions: [[x,y,z],...]}, ...]}}
+     * 读取失败时保留上一快照的道路段数据和水位（数据未变化，不触发缓存清空），并标记稍后重试
      */
-    private static void parseRoadDataBlob(byte[] blob, WorldDataCache cache) {
-        try {
-            CompoundTag root = NbtIo.readCompressed(new ByteArrayInputStream(blob));
-            if (root == null) return;
-
-            CompoundTag roadTag = root.getCompound("road");
-            if (roadTag.isEmpty()) return;
-
-            // 解析 placements 列表
-            if (roadTag.contains("placements", Tag.TAG_LIST)) {
-                ListTag placements = roadTag.getList("placements", Tag.TAG_COMPOUND);
-                for (int i = 0; i < placements.size(); i++) {
-                    CompoundTag placement = placements.getCompound(i);
-
-                    if (placement.contains("positions", Tag.TAG_LIST)) {
-                        ListTag posList = placement.getList("positions", Tag.TAG_INT_ARRAY);
-                        for (int j = 0; j < posList.size(); j++) {
-                            int[] arr = posList.getIntArray(j);
-                            if (arr.length >= 3) {
-                                BlockPos pos = new BlockPos(arr[0], arr[1], arr[2]);
-                                long chunkKey = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
-                                cache.roadSegmentPositions
-                                        .computeIfAbsent(chunkKey, k -> new HashSet<>())
-                                        .add(pos);
-                            }
-                        }
-                    }
-                }
+    private static void keepPreviousSegments(WorldDataCache previous, WorldDataCache cache) {
+        if (previous.segmentMaxRowId >= 0) {
+            copySegmentState(previous, cache);
+        }
+        cache.segmentRetryNeeded = true;
+    }
+
+    /**
+     * 行号不超过 upToRowId 的行数（只走主键，不读取数据）
+     */
+    private static long countRows(Connection conn, long upToRowId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM roads WHERE _ROWID_ <= ?")) {
+            stmt.setLong(1, upToRowId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
             }
-        } catch (Exception e) {
+        }
+    }
+
+    /**
+     * 行号在 (afterRowId, upToRowId] 内的行指纹（在数据库内聚合）
+     *
+     * @return {行数, 校验和}；校验和 = 数据长度之和 * 常数 + 数据哈希之和，对不相交区间可直接相加
+     */
+    private static long[] fingerprintRows(Connection conn, long afterRowId, long upToRowId) throws SQLException {
+        String lengthOnly = "SELECT COUNT(*), COALESCE(SUM(OCTET_LENGTH(data)), 0), 0 "
+                + "FROM roads WHERE _ROWID_ > ? AND _ROWID_ <= ?";
+        if (!rowHashSupported) {
+            return queryFingerprint(conn, lengthOnly, afterRowId, upToRowId);
+        }
+
+        try {
+            return queryFingerprint(conn, "SELECT COUNT(*), COALESCE(SUM(OCTET_LENGTH(data)), 0), "
+                    + "COALESCE(SUM(ORA_HASH(data)), 0) FROM roads WHERE _ROWID_ > ? AND _ROWID_ <= ?",
+                    afterRowId, upToRowId);
+        } catch (SQLException e) {
+            // 只统计长度的查询也失败时说明是其他错误，异常照常抛出
+            long[] fingerprint = queryFingerprint(conn, lengthOnly, afterRowId, upToRowId);
+            rowHashSupported = false;
             if (SpeedModConfig.isDebugMessagesEnabled()) {
-                QianmoSpeedMod.LOGGER.debug("解析 RoadData BLOB 失败: {}", e.getMessage());
+                QianmoSpeedMod.LOGGER.debug("H2 不支持 ORA_HASH，行指纹只统计数据长度: {}", e.getMessage());
             }
+            return fingerprint;
         }
     }
 
+    private static long[] queryFingerprint(Connection conn, String sql, long afterRowId, long upToRowId)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, afterRowId);
+            stmt.setLong(2, upToRowId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return new long[]{-1, 0};
+                return new long[]{rs.getLong(1), rs.getLong(2) * 0x9E3779B97F4A7C15L + rs.getLong(3)};
+            }
+        }
+    }
+
+    private static void copySegmentState(WorldDataCache from, WorldDataCache to) {
+        to.roadSegments = from.roadSegments;
+        to.segmentSourceModified = from.segmentSourceModified;
+        to.segmentMaxRowId = from.segmentMaxRowId;
+        to.segmentRowCount = from.segmentRowCount;
+        to.segmentChecksum = from.segmentChecksum;
+        to.incrementalSyncs = from.incrementalSyncs;
+    }
+
+    /**
+     * H2 数据库路径：&lt;world&gt;/data/roadweaver/&lt;dim&gt;/roads
+     * <p>
+     * RoadWeaver 的存储结构：data/roadweaver/&lt;dimension_namespace&gt;_&lt;dimension_path&gt;/roads
+     */
+    private static Path getH2DatabaseFile(Path worldRoot, ResourceLocation dimension) {
+        String dimKey = dimension.toString().replace(':', '_');
+        return Paths.get(worldRoot.toString(), "data", DB_DIR_NAME).resolve(dimKey).resolve("roads");
+    }
+
     /**
-     * 获取 H2 数据库连接
+     * 文件修改时间（H2 数据库优先取实际文件 roads.mv.db），不存在时返回 -1
      */
-    private static Connection getH2Connection(ServerLevel level) {
-        if (!h2Available) return null;
+    private static long getLastModified(Path dbFile) {
         try {
-            // H2 数据库路径：<world>/data/roadweaver/<dim>/roads
-            Path dbPath = Paths.get(
-                    level.getServer().getWorldPath(LevelResource.ROOT).toString(),
-                    "data", DB_DIR_NAME);
-
-            // 查找维度对应的数据库文件
-            // RoadWeaver 的存储结构：data/roadweaver/<dimension_namespace>_<dimension_path>/roads
-            String dimKey = level.dimension().location().toString().replace(':', '_');
-            Path dimDir = dbPath.resolve(dimKey);
-            Path dbFile = dimDir.resolve("roads");
-
-            if (!dbFile.toFile().exists()) {
+            Path mvFile = dbFile.resolveSibling(dbFile.getFileName() + ".mv.db");
+            if (Files.exists(mvFile)) {
+                return Files.getLastModifiedTime(mvFile).toMillis();
+            }
+            if (Files.exists(dbFile)) {
+                return Files.getLastModifiedTime(dbFile).toMillis();
+            }
+        } catch (IOException ignored) {
+        }
+        return -1;
+    }
+
+    /**
+     * 获取 H2 数据库连接（是否读取 H2 由调用方按驱动可用性决定）
+     */
+    private static Connection getH2Connection(Path dbFile) {
+        try {
+            if (getLastModified(dbFile) < 0) {
                 return null;
             }
 
@@ -495,11 +813,56 @@ public class RoadWeaverH2Helper {
     }
 
     // ==================== 缓存管理 ====================
+    /**
+     * 标记维度数据需要刷新；刷新在后台进行，完成前继续使用旧快照
+     */
     public static void clearCache(String dimension) {
-        WORLD_CACHE.remove(dimension);
+        for (Map.Entry<ResourceKey<Level>, DimensionData> entry : WORLD_CACHE.entrySet()) {
+            if (entry.getKey().location().toString().equals(dimension)) {
+                entry.getValue().stale = true;
+                entry.getValue().nextRetryTime = 0;
+            }
+        }
     }
 
     public static void clearAllCache() {
-        WORLD_CACHE.clear();
+        for (DimensionData data : WORLD_CACHE.values()) {
+            data.stale = true;
+            data.nextRetryTime = 0;
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    /**
+     * 所有维度快照的汇总统计（快照发布后不再修改，可在任意线程读取）
+     *
+     * @param dimensions         已加载过快照的维度数
+     * @param oldestUpdateTime   最旧快照的更新时间（毫秒时间戳，没有快照时为 0）
+     * @param slowestLoadNanos   各维度最近一次加载耗时中的最大值（-1 表示尚未加载）
+     * @param plannedChunks      规划区块数
+     * @param connections        连接数（普通 + 公路）
+     * @param roadSegmentBlocks  道路段方块数
+     */
+    public record SnapshotStats(int dimensions, long oldestUpdateTime, long slowestLoadNanos,
+            long plannedChunks, long connections, long roadSegmentBlocks) {
+    }
+
+    public static SnapshotStats getSnapshotStats() {
+        int dimensions = 0;
+        long oldest = Long.MAX_VALUE;
+        long slowest = -1;
+        long planned = 0, connections = 0, segments = 0;
+        for (DimensionData data : WORLD_CACHE.values()) {
+            WorldDataCache cache = data.snapshot.get();
+            if (cache == WorldDataCache.EMPTY) continue;
+            dimensions++;
+            oldest = Math.min(oldest, cache.lastUpdateTime);
+            slowest = Math.max(slowest, data.lastLoadNanos);
+            planned += cache.plannedChunks.size();
+            connections += cache.connections.size() + cache.highwayConnections.size();
+            segments += cache.roadSegments.getPositionCount();
+        }
+        return new SnapshotStats(dimensions, dimensions == 0 ? 0 : oldest, slowest, planned, connections, segments);
     }
 }
\ No newline at end of file
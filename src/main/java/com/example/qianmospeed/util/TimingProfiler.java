@@ -0,0 +1,324 @@
+package com.example.qianmospeed.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 分子系统耗时统计（运行时开关，默认关闭）
+ * <p>
+ * 每个计时器按 {@link #SLOT_SECONDS} 秒一个时间片保存对数-线性直方图（HdrHistogram 式分桶，每个 2 的幂区间 16 个子桶，
+ * 相对误差约 6%），报告时合并最近 {@link #SLOTS} 个时间片，即滚动窗口 {@link #WINDOW_SECONDS} 秒。
+ * 命中计数器以同样的时间片统计缓存命中/未命中。
+ * <p>
+ * 关闭时 {@link Timer#begin()} 和 {@link HitCounter#record(boolean)} 只读取一个 volatile 字段，不调用 nanoTime；
+ * 开启后每次记录是一次无竞争加锁（RoadWeaver 加载在后台线程上记录，其余都在服务器线程上）。
+ * 直方图存储在首次开启时才分配。
+ */
+public final class TimingProfiler {
+    public static final int SLOT_SECONDS = 10;
+    public static final int SLOTS = 6;
+    public static final int WINDOW_SECONDS = SLOT_SECONDS * SLOTS;
+
+    private static final long SLOT_NANOS = SLOT_SECONDS * 1_000_000_000L;
+    // begin() 在关闭时返回的标记值
+    private static final long NOT_TIMING = Long.MIN_VALUE;
+
+    // 直方图：小于 16ns 的值各占一个桶，之后每个 2 的幂区间 16 个子桶，上限约 2^40ns（18 分钟）
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final List<Timer> TIMERS = new CopyOnWriteArrayList<>();
+    private static final List<HitCounter> COUNTERS = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled = false;
+
+    private TimingProfiler() {
+    }
+
+    // ==================== 开关 ====================
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开启或关闭统计；开启时清空之前的数据
+     */
+    public static void setEnabled(boolean value) {
+        if (value && !enabled) {
+            reset();
+        }
+        enabled = value;
+    }
+
+    public static void reset() {
+        for (Timer timer : TIMERS) {
+            timer.clear();
+        }
+        for (HitCounter counter : COUNTERS) {
+            counter.clear();
+        }
+    }
+
+    /**
+     * 登记一个计时器（在静态字段中创建，名称用于报告）
+     */
+    public static Timer timer(String name) {
+        Timer timer = new Timer(name);
+        TIMERS.add(timer);
+        return timer;
+    }
+
+    /**
+     * 登记一个缓存命中计数器
+     */
+    public static HitCounter hitCounter(String name) {
+        HitCounter counter = new HitCounter(name);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    public static List<Timer> getTimers() {
+        return Collections.unmodifiableList(TIMERS);
+    }
+
+    public static List<HitCounter> getHitCounters() {
+        return Collections.unmodifiableList(COUNTERS);
+    }
+
+    private static long currentSlotEpoch() {
+        return System.nanoTime() / SLOT_NANOS;
+    }
+
+    // ==================== 计时器 ====================
+
+    public static final class Timer {
+        private final String name;
+        // 以下数组在首次记录时分配，按时间片下标访问
+        private long[][] buckets;
+        private long[] slotEpochs;
+        private long[] counts;
+        private long[] sums;
+        private long[] maxes;
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 开始一次计时
+         *
+         * @return 起始时间；统计关闭时返回标记值，{@link #end(long)} 会忽略
+         */
+        public long begin() {
+            return enabled ? System.nanoTime() : NOT_TIMING;
+        }
+
+        public void end(long start) {
+            if (start == NOT_TIMING) return;
+            record(System.nanoTime() - start);
+        }
+
+        /**
+         * 直接记录一次耗时（纳秒），用于耗时已另行测得的场合
+         */
+        public void record(long nanos) {
+            if (!enabled) return;
+            long epoch = currentSlotEpoch();
+            synchronized (this) {
+                if (buckets == null) {
+                    buckets = new long[SLOTS][BUCKETS];
+                    slotEpochs = new long[SLOTS];
+                    counts = new long[SLOTS];
+                    sums = new long[SLOTS];
+                    maxes = new long[SLOTS];
+                    Arrays.fill(slotEpochs, -1);
+                }
+                int slot = (int) (epoch % SLOTS);
+                if (slotEpochs[slot] != epoch) {
+                    // 时间片已轮转：丢弃其中超出窗口的旧数据
+                    Arrays.fill(buckets[slot], 0);
+                    counts[slot] = 0;
+                    sums[slot] = 0;
+                    maxes[slot] = 0;
+                    slotEpochs[slot] = epoch;
+                }
+                long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+                buckets[slot][bucketIndex(value)]++;
+                counts[slot]++;
+                sums[slot] += value;
+                if (value > maxes[slot]) {
+                    maxes[slot] = value;
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            buckets = null;
+            slotEpochs = null;
+            counts = null;
+            sums = null;
+            maxes = null;
+        }
+
+        /**
+         * 合并滚动窗口内的数据
+         */
+        public synchronized Snapshot snapshot() {
+            if (buckets == null) return new Snapshot(name, 0, 0, 0, 0);
+
+            long epoch = currentSlotEpoch();
+            long[] merged = new long[BUCKETS];
+            long count = 0;
+            long sum = 0;
+            long max = 0;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (slotEpochs[slot] <= epoch - SLOTS) continue;
+                long[] slotBuckets = buckets[slot];
+                for (int i = 0; i < BUCKETS; i++) {
+                    merged[i] += slotBuckets[i];
+                }
+                count += counts[slot];
+                sum += sums[slot];
+                max = Math.max(max, maxes[slot]);
+            }
+            if (count == 0) return new Snapshot(name, 0, 0, 0, 0);
+
+            // p99：累计计数首次达到 99% 的桶，取该桶可表示的最大值（不超过实际最大值）
+            long rank = (long) Math.ceil(count * 0.99);
+            long seen = 0;
+            long p99 = max;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += merged[i];
+                if (seen >= rank) {
+                    p99 = Math.min(max, highestEquivalentValue(i));
+                    break;
+                }
+            }
+            return new Snapshot(name, count, (double) sum / count, p99, max);
+        }
+    }
+
+    /**
+     * 计时器在滚动窗口内的统计（耗时单位：纳秒）
+     */
+    public record Snapshot(String name, long count, double mean, long p99, long max) {
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    // ==================== 命中计数器 ====================
+
+    public static final class HitCounter {
+        private final String name;
+        private long[] slotEpochs;
+        private long[] hits;
+        private long[] misses;
+
+        private HitCounter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void record(boolean hit) {
+            if (!enabled) return;
+            long epoch = currentSlotEpoch();
+            synchronized (this) {
+                if (slotEpochs == null) {
+                    slotEpochs = new long[SLOTS];
+                    hits = new long[SLOTS];
+                    misses = new long[SLOTS];
+                    Arrays.fill(slotEpochs, -1);
+                }
+                int slot = (int) (epoch % SLOTS);
+                if (slotEpochs[slot] != epoch) {
+                    hits[slot] = 0;
+                    misses[slot] = 0;
+                    slotEpochs[slot] = epoch;
+                }
+                if (hit) {
+                    hits[slot]++;
+                } else {
+                    misses[slot]++;
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            slotEpochs = null;
+            hits = null;
+            misses = null;
+        }
+
+        /**
+         * 滚动窗口内的命中数和未命中数
+         */
+        public synchronized long[] snapshot() {
+            long hitCount = 0;
+            long missCount = 0;
+            if (slotEpochs != null) {
+                long epoch = currentSlotEpoch();
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    if (slotEpochs[slot] <= epoch - SLOTS) continue;
+                    hitCount += hits[slot];
+                    missCount += misses[slot];
+                }
+            }
+            return new long[]{hitCount, missCount};
+        }
+    }
+
+    // ==================== 报告 ====================
+
+    /**
+     * 按登记顺序生成报告行（无数据的条目省略）
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (Timer timer : TIMERS) {
+            Snapshot s = timer.snapshot();
+            if (s.count() == 0) continue;
+            lines.add(String.format("%s: 次数 %d, 平均 %s, p99 %s, 最大 %s",
+                    s.name(), s.count(), formatNanos(s.mean()), formatNanos(s.p99()), formatNanos(s.max())));
+        }
+        for (HitCounter counter : COUNTERS) {
+            long[] s = counter.snapshot();
+            long total = s[0] + s[1];
+            if (total == 0) continue;
+            lines.add(String.format("%s: 命中率 %.1f%% (%d/%d)", counter.getName(), s[0] * 100.0 / total, s[0], total));
+        }
+        return lines;
+    }
+
+    private static String formatNanos(double nanos) {
+        if (nanos >= 1_000_000) return String.format("%.2fms", nanos / 1_000_000);
+        if (nanos >= 1_000) return String.format("%.1fµs", nanos / 1_000);
+        return String.format("%.0fns", nanos);
+    }
+}